@@ -4,6 +4,7 @@ import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.categories.service.CategoryService;
@@ -21,10 +22,11 @@ public class CategoriesPublicController {
     private final CategoryService categoryService;
 
     @GetMapping
-    public List<CategoryDto> getAll(
+    public ResponseEntity<List<CategoryDto>> getAll(
             @RequestParam(value = "from", defaultValue = "0") @PositiveOrZero Integer from,
+            @RequestParam(required = false) String after,
             @RequestParam(value = "size", defaultValue = "10") @Positive Integer size) {
-        return categoryService.getAllCategories(from, size);
+        return categoryService.getAllCategories(from, after, size).toResponse();
     }
 
     @GetMapping("/{categoryId}")
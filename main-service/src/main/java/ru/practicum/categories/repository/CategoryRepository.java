@@ -1,9 +1,16 @@
 package ru.practicum.categories.repository;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import ru.practicum.categories.model.Category;
 
+import java.util.List;
+
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
+    List<Category> findAllBy(Pageable pageable);
+
+    List<Category> findAllByIdGreaterThanOrderById(Long afterId, Limit limit);
 }
@@ -3,11 +3,10 @@ package ru.practicum.categories.service;
 import ru.practicum.categories.dto.CategoryDto;
 import ru.practicum.categories.dto.NewCategoryDto;
 import ru.practicum.exceptions.NotFoundException;
-
-import java.util.List;
+import ru.practicum.pagination.CursorPage;
 
 public interface CategoryService {
-    List<CategoryDto> getAllCategories(Integer from, Integer size);
+    CursorPage<CategoryDto> getAllCategories(Integer from, String after, Integer size);
 
     CategoryDto getCategoryById(Long id) throws NotFoundException;
 
@@ -2,7 +2,8 @@ package ru.practicum.categories.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.categories.dto.CategoryDto;
@@ -10,23 +11,31 @@ import ru.practicum.categories.dto.NewCategoryDto;
 import ru.practicum.categories.mapper.CategoryMapper;
 import ru.practicum.categories.model.Category;
 import ru.practicum.categories.repository.CategoryRepository;
+import ru.practicum.compilations.service.CompilationsCache;
 import ru.practicum.exceptions.NotFoundException;
+import ru.practicum.pagination.CursorPage;
+import ru.practicum.pagination.OffsetPageRequest;
+import ru.practicum.pagination.PageCursor;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CategoryServiceImpl implements CategoryService {
     private final CategoryRepository categoryRepository;
+    private final CompilationsCache compilationsCache;
 
     @Override
     @Transactional(readOnly = true)
-    public List<CategoryDto> getAllCategories(Integer from, Integer size) {
-        log.info("getAllCategories Получаем иформацию о категориях, параментры: from = {}, size = {}", from, size);
-        return categoryRepository.findAll(PageRequest.of(from / size, size)).stream()
-                .map(CategoryMapper::toCategoryDto).collect(Collectors.toList());
+    public CursorPage<CategoryDto> getAllCategories(Integer from, String after, Integer size) {
+        log.info("getAllCategories Получаем иформацию о категориях, параментры: from = {}, after = {}, size = {}",
+                from, after, size);
+        List<Category> categories = after != null
+                ? categoryRepository.findAllByIdGreaterThanOrderById(PageCursor.decode(after).getId(), Limit.of(size))
+                : categoryRepository.findAllBy(OffsetPageRequest.of(from, size, Sort.by("id")));
+        return CursorPage.of(categories, size, CategoryMapper::toCategoryDto,
+                category -> PageCursor.ofId(category.getId()));
     }
 
     @Override
@@ -48,6 +57,8 @@ public class CategoryServiceImpl implements CategoryService {
     public CategoryDto updateCategory(Long categoryId, CategoryDto categoryDto) throws NotFoundException {
         Category category = getCategory(categoryId);
         category.setName(categoryDto.getName());
+        // category names are part of the events shown in compilations
+        compilationsCache.invalidateAfterCommit();
         log.info("updateCategory Обновляем категорию: \"{}\"", categoryDto.getName());
         return CategoryMapper.toCategoryDto(categoryRepository.save(category));
     }
@@ -3,6 +3,7 @@ package ru.practicum.comments.controller;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.comments.service.CommentService;
@@ -19,11 +20,12 @@ public class CommentControllerPublic {
     private final CommentService commentService;
 
     @GetMapping("/event/{eventId}")
-    List<CommentDto> getComments(
+    ResponseEntity<List<CommentDto>> getComments(
             @PathVariable Long eventId,
             @RequestParam(value = "from", defaultValue = "0") @PositiveOrZero Integer from,
+            @RequestParam(required = false) String after,
             @RequestParam(value = "size", defaultValue = "10") @Positive Integer size) throws NotFoundException {
-        return commentService.getComments(eventId, from, size);
+        return commentService.getComments(eventId, from, after, size).toResponse();
     }
 
     @GetMapping("/{commentId}")
@@ -1,17 +1,30 @@
 package ru.practicum.comments.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import ru.practicum.comments.model.Comment;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
+    @Override
+    @EntityGraph(attributePaths = {"author", "event", "event.category", "event.initiator"})
+    Optional<Comment> findById(Long id);
+
+    @EntityGraph(attributePaths = {"author", "event", "event.category", "event.initiator"})
     List<Comment> findAllByAuthorId(Long userId, Pageable pageable);
 
+    // the event of these comments is loaded once by the service, only the author is per row
+    @EntityGraph(attributePaths = {"author"})
     List<Comment> findAllByEventId(Long eventId, Pageable pageable);
 
+    @EntityGraph(attributePaths = {"author"})
+    List<Comment> findAllByEventIdAndIdGreaterThanOrderById(Long eventId, Long afterId, Limit limit);
+
 }
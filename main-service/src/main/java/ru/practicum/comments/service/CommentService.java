@@ -3,6 +3,7 @@ package ru.practicum.comments.service;
 import ru.practicum.comments.dto.CommentDto;
 import ru.practicum.comments.dto.CommentNewDto;
 import ru.practicum.exceptions.NotFoundException;
+import ru.practicum.pagination.CursorPage;
 
 import java.util.List;
 
@@ -13,7 +14,8 @@ public interface CommentService {
 
     List<CommentDto> getCommentsByUser(Long userId, Integer from, Integer size) throws NotFoundException;
 
-    List<CommentDto> getComments(Long eventId, Integer from, Integer size) throws NotFoundException;
+    CursorPage<CommentDto> getComments(Long eventId, Integer from, String after, Integer size)
+            throws NotFoundException;
 
     CommentDto getCommentById(Long commentId) throws NotFoundException;
 
@@ -3,7 +3,8 @@ package ru.practicum.comments.service;
 import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.comments.dto.CommentDto;
@@ -17,7 +18,9 @@ import ru.practicum.events.repository.EventRepository;
 import ru.practicum.events.dto.EventShortDto;
 import ru.practicum.exceptions.BadRequestException;
 import ru.practicum.exceptions.NotFoundException;
-import ru.practicum.requests.repository.RequestRepository;
+import ru.practicum.pagination.CursorPage;
+import ru.practicum.pagination.OffsetPageRequest;
+import ru.practicum.pagination.PageCursor;
 import ru.practicum.users.model.User;
 import ru.practicum.users.mapper.UserMapper;
 import ru.practicum.users.repository.UserRepository;
@@ -26,10 +29,8 @@ import ru.practicum.users.dto.UserShortDto;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import static ru.practicum.events.enums.State.PUBLISHED;
-import static ru.practicum.requests.enums.RequestStatus.CONFIRMED;
 
 
 @Slf4j
@@ -39,21 +40,23 @@ public class CommentServiceImpl implements CommentService {
     private final CommentRepository commentRepository;
     private final UserRepository userRepository;
     private final EventRepository eventRepository;
-    private final RequestRepository requestRepository;
 
 
     @Override
     @Transactional(readOnly = true)
-    public List<CommentDto> getComments(Long eventId, Integer from, Integer size) throws NotFoundException {
+    public CursorPage<CommentDto> getComments(Long eventId, Integer from, String after, Integer size)
+            throws NotFoundException {
         Event event = getEvent(eventId);
-        EventShortDto eventShort = EventMapper.toEventShortDto(event,
-                requestRepository.countByEventIdAndStatus(eventId, CONFIRMED));
+        EventShortDto eventShort = EventMapper.toEventShortDto(event, event.getConfirmedRequests());
         log.info("Получаем комментарии к событию: eventId={} " +
-                "с параметрами from={}, size={}", eventId, from, size);
-        return commentRepository.findAllByEventId(eventId, PageRequest.of(from / size, size))
-                .stream()
-                .map(c -> CommentMapper.toCommentDto(c, UserMapper.toUserShortDto(c.getAuthor()), eventShort))
-                .collect(Collectors.toList());
+                "с параметрами from={}, after={}, size={}", eventId, from, after, size);
+        List<Comment> comments = after != null
+                ? commentRepository.findAllByEventIdAndIdGreaterThanOrderById(eventId,
+                        PageCursor.decode(after).getId(), Limit.of(size))
+                : commentRepository.findAllByEventId(eventId, OffsetPageRequest.of(from, size, Sort.by("id")));
+        return CursorPage.of(comments, size,
+                c -> CommentMapper.toCommentDto(c, UserMapper.toUserShortDto(c.getAuthor()), eventShort),
+                c -> PageCursor.ofId(c.getId()));
     }
 
     @Override
@@ -62,7 +65,7 @@ public class CommentServiceImpl implements CommentService {
         Comment comment = getComment(commentId);
         UserShortDto userShort = UserMapper.toUserShortDto(comment.getAuthor());
         EventShortDto eventShort = EventMapper.toEventShortDto(comment.getEvent(),
-                requestRepository.countByEventIdAndStatus(comment.getEvent().getId(), CONFIRMED));
+                comment.getEvent().getConfirmedRequests());
         log.info("Получаем иформацию о комметарии commentId={}", commentId);
         return CommentMapper.toCommentDto(comment, userShort, eventShort);
     }
@@ -76,7 +79,7 @@ public class CommentServiceImpl implements CommentService {
             throw new BadRequestException("Event must have status PUBLISH to comment.");
         }
         UserShortDto userShort = UserMapper.toUserShortDto(author);
-        Long confirmedRequests = requestRepository.countByEventIdAndStatus(eventId, CONFIRMED);
+        Long confirmedRequests = event.getConfirmedRequests();
         EventShortDto eventShort = EventMapper.toEventShortDto(event, confirmedRequests);
         Comment comment = commentRepository.save(CommentMapper.toComment(commentNewDto, author, event, confirmedRequests));
         log.info("Добавляем комментарий от пользователя: userId={}, eventId={}, comment={}", userId, eventId, commentNewDto);
@@ -96,8 +99,7 @@ public class CommentServiceImpl implements CommentService {
         comment.setText(commentNewDto.getText());
         comment.setEdited(LocalDateTime.now());
         UserShortDto userShort = UserMapper.toUserShortDto(author);
-        EventShortDto eventShort = EventMapper.toEventShortDto(event,
-                requestRepository.countByEventIdAndStatus(eventId, CONFIRMED));
+        EventShortDto eventShort = EventMapper.toEventShortDto(event, event.getConfirmedRequests());
         log.info("Обновляем комментарий пользователя: userId={}, eventId={}, commentId={}", userId, eventId, commentId);
         return CommentMapper.toCommentDto(comment, userShort, eventShort);
     }
@@ -108,11 +110,11 @@ public class CommentServiceImpl implements CommentService {
         User author = getUser(userId);
         List<Comment> comments =
                 commentRepository.findAllByAuthorId(
-                        userId, PageRequest.of(from / size, size));
+                        userId, OffsetPageRequest.of(from, size, Sort.by("id")));
         UserShortDto userShort = UserMapper.toUserShortDto(author);
         List<CommentDto> result = new ArrayList<>();
         for (Comment c : comments) {
-            EventShortDto eventShort = EventMapper.toEventShortDto(c.getEvent(), c.getConfirmedRequests());
+            EventShortDto eventShort = EventMapper.toEventShortDto(c.getEvent(), c.getEvent().getConfirmedRequests());
             result.add(CommentMapper.toCommentDto(c, userShort, eventShort));
         }
         log.info("Получение информации о комментариях пользователя userId={} " +
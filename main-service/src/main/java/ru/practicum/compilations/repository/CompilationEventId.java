@@ -0,0 +1,5 @@
+package ru.practicum.compilations.repository;
+
+// one row of compilation_event
+public record CompilationEventId(Long compilationId, Long eventId) {
+}
@@ -1,13 +1,28 @@
 package ru.practicum.compilations.repository;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.practicum.compilations.model.Compilation;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CompilationRepository extends JpaRepository<Compilation, Long> {
+    // a single compilation can fetch its events in the same query; pages cannot, fetching a collection would
+    // make Hibernate paginate in memory, so their events are resolved through findEventIds
+    @Override
+    @EntityGraph(attributePaths = {"events", "events.category", "events.initiator"})
+    Optional<Compilation> findById(Long id);
+
     List<Compilation> findAllByPinned(Boolean pinned, Pageable pageable);
+
+    boolean existsByEventsId(Long eventId);
+
+    @Query("SELECT new ru.practicum.compilations.repository.CompilationEventId(c.id, e.id) " +
+            "FROM Compilation c JOIN c.events e WHERE c.id IN :compilationIds ORDER BY e.id")
+    List<CompilationEventId> findEventIds(List<Long> compilationIds);
 }
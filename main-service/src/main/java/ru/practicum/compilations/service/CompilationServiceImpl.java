@@ -2,76 +2,94 @@ package ru.practicum.compilations.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.compilations.dto.CompilationDto;
 import ru.practicum.compilations.dto.NewCompilationDto;
 import ru.practicum.compilations.dto.UpdateCompilationRequest;
 import ru.practicum.compilations.mapper.CompilationMapper;
 import ru.practicum.compilations.model.Compilation;
+import ru.practicum.compilations.repository.CompilationEventId;
 import ru.practicum.compilations.repository.CompilationRepository;
 import ru.practicum.events.model.Event;
 import ru.practicum.events.mapper.EventMapper;
 import ru.practicum.events.repository.EventRepository;
+import ru.practicum.events.repository.EventShortView;
 import ru.practicum.events.dto.EventShortDto;
 import ru.practicum.exceptions.NotFoundException;
-import ru.practicum.requests.repository.RequestRepository;
-import ru.practicum.requests.dto.ConfirmedRequests;
+import ru.practicum.pagination.OffsetPageRequest;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
-import static ru.practicum.requests.enums.RequestStatus.CONFIRMED;
-
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CompilationServiceImpl implements CompilationService {
     private final CompilationRepository compilationRepository;
     private final EventRepository eventRepository;
-    private final RequestRepository requestRepository;
+    private final CompilationsCache compilationsCache;
+    private final PlatformTransactionManager transactionManager;
 
-    @Transactional(readOnly = true)
+    // not transactional: a cache hit needs no connection, a miss is built in a read-only transaction of its own
     @Override
     public List<CompilationDto> getCompilations(Boolean pinned, Integer from, Integer size) {
-        Pageable pageable = PageRequest.of(from / size, size);
-        List<Compilation> compilations;
+        List<CompilationDto> result = compilationsCache.get(pinned, from, size, () -> {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setReadOnly(true);
+            return transactionTemplate.execute(status -> {
+                Pageable pageable = OffsetPageRequest.of(from, size, Sort.by("id"));
+                List<Compilation> compilations;
+
+                if (pinned != null) {
+                    compilations = compilationRepository.findAllByPinned(pinned, pageable);
+                } else {
+                    compilations = compilationRepository.findAll(pageable).getContent();
+                }
+                return toCompilationDtos(compilations);
+            });
+        });
+        log.info("getCompilations Получаем подборку событий");
+        return result;
+    }
 
-        if (pinned != null) {
-            compilations = compilationRepository.findAllByPinned(pinned, pageable);
-        } else {
-            compilations = compilationRepository.findAll(pageable).getContent();
+    /*
+     * Three queries for any page: the compilations, their compilation_event rows, and the short views of the
+     * union of their events with confirmed counts. compilation.getEvents() is not touched, it would load the
+     * events of every compilation separately.
+     */
+    private List<CompilationDto> toCompilationDtos(List<Compilation> compilations) {
+        if (compilations.isEmpty()) {
+            return List.of();
+        }
+        List<Long> compilationIds = compilations.stream().map(Compilation::getId).collect(Collectors.toList());
+        Map<Long, List<Long>> eventIdsByCompilation = compilationRepository.findEventIds(compilationIds).stream()
+                .collect(Collectors.groupingBy(CompilationEventId::compilationId,
+                        Collectors.mapping(CompilationEventId::eventId, Collectors.toList())));
+        Set<Long> eventIds = eventIdsByCompilation.values().stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toSet());
+        Specification<Event> specification = (root, query, criteriaBuilder) -> root.get("id").in(eventIds);
+        Map<Long, EventShortDto> events = eventIds.isEmpty()
+                ? Map.of()
+                : eventRepository.findShortViews(specification, Pageable.unpaged()).stream()
+                        .collect(Collectors.toMap(EventShortView::id, EventMapper::toEventShortDto));
+        List<CompilationDto> result = new ArrayList<>();
+        for (Compilation compilation : compilations) {
+            CompilationDto compilationDto = CompilationMapper.toCompilationDto(compilation);
+            compilationDto.setEvents(eventIdsByCompilation.getOrDefault(compilation.getId(), List.of()).stream()
+                    .map(events::get)
+                    .collect(Collectors.toList()));
+            result.add(compilationDto);
         }
-
-        List<Long> compilationIds = compilations.stream()
-                .map(Compilation::getId)
-                .collect(Collectors.toList());
-
-        List<Event> events = eventRepository.findAllByInitiatorIdIn(compilationIds);
-
-        List<Long> eventIds = events.stream()
-                .map(Event::getId)
-                .collect(Collectors.toList());
-
-        Map<Long, Long> confirmedRequests = requestRepository.findAllByEventIdInAndStatus(eventIds, CONFIRMED)
-                .stream()
-                .collect(Collectors.toMap(ConfirmedRequests::getEvent, ConfirmedRequests::getCount));
-
-        List<CompilationDto> result = compilations.stream()
-                .map(compilation -> {
-                    CompilationDto compilationDto = CompilationMapper.toCompilationDto(compilation);
-                    List<EventShortDto> eventShortDtos = compilation.getEvents().stream()
-                            .map(event -> EventMapper.toEventShortDto(event, confirmedRequests.get(event.getId())))
-                            .collect(Collectors.toList());
-                    compilationDto.setEvents(eventShortDtos);
-                    return compilationDto;
-                })
-                .collect(Collectors.toList());
-        log.info("getCompilations Получаем подборку событий");
         return result;
     }
 
@@ -81,12 +99,8 @@ public class CompilationServiceImpl implements CompilationService {
         Compilation compilation = getCompilation(compilationId);
         CompilationDto compilationDto = CompilationMapper.toCompilationDto(compilation);
         if (compilation.getEvents() != null) {
-            List<Long> ids = compilation.getEvents().stream().map(Event::getId).collect(Collectors.toList());
-            Map<Long, Long> confirmedRequests = requestRepository.findAllByEventIdInAndStatus(ids, CONFIRMED)
-                    .stream()
-                    .collect(Collectors.toMap(ConfirmedRequests::getEvent, ConfirmedRequests::getCount));
             compilationDto.setEvents(compilation.getEvents().stream()
-                    .map(event -> EventMapper.toEventShortDto(event, confirmedRequests.get(event.getId())))
+                    .map(event -> EventMapper.toEventShortDto(event, event.getConfirmedRequests()))
                     .collect(Collectors.toList()));
         }
         log.info("getCompilationById Получаем подборки событий id={}", compilationDto.getId());
@@ -98,6 +112,7 @@ public class CompilationServiceImpl implements CompilationService {
     public CompilationDto addCompilation(NewCompilationDto newCompilationDto) {
         Compilation compilation = CompilationMapper.toCompilationEntity(newCompilationDto);
         setEvents(compilation, newCompilationDto.getEvents());
+        compilationsCache.invalidateAfterCommit();
         log.info("addCompilation Сохраняем подборку: \"{}\"", newCompilationDto.getTitle());
         return setCompilationDto(compilation);
     }
@@ -106,15 +121,7 @@ public class CompilationServiceImpl implements CompilationService {
     @Override
     public CompilationDto updateCompilation(Long compId, UpdateCompilationRequest updateCompilation) throws NotFoundException {
         Compilation compilation = getCompilation(compId);
-        if (updateCompilation.getEvents() != null) {
-            Set<Event> events = updateCompilation.getEvents().stream()
-                    .map(id -> {
-                        Event event = new Event();
-                        event.setId(id);
-                        return event;
-                    }).collect(Collectors.toSet());
-            compilation.setEvents(events);
-        }
+        setEvents(compilation, updateCompilation.getEvents());
         if (updateCompilation.getPinned() != null) {
             compilation.setPinned(updateCompilation.getPinned());
         }
@@ -122,6 +129,7 @@ public class CompilationServiceImpl implements CompilationService {
         if (title != null && !title.isBlank()) {
             compilation.setTitle(title);
         }
+        compilationsCache.invalidateAfterCommit();
         log.info("updateCompilation обновляем подборку: {}", updateCompilation.getTitle());
         return setCompilationDto(compilation);
     }
@@ -132,6 +140,7 @@ public class CompilationServiceImpl implements CompilationService {
         getCompilation(compilationId);
         log.info("Запрос DELETE /admin/compilations/{compilationId} /, deleteCompilation удаляем подборку {}", compilationId);
         compilationRepository.deleteById(compilationId);
+        compilationsCache.invalidateAfterCommit();
     }
 
     private void setEvents(Compilation compilation, List<Long> eventIds) {
@@ -143,12 +152,8 @@ public class CompilationServiceImpl implements CompilationService {
     private CompilationDto setCompilationDto(Compilation compilation) {
         CompilationDto compilationDto = CompilationMapper.toCompilationDto(compilationRepository.save(compilation));
         if (compilation.getEvents() != null) {
-            List<Long> ids = compilation.getEvents().stream().map(Event::getId).collect(Collectors.toList());
-            Map<Long, Long> confirmedRequests = requestRepository.findAllByEventIdInAndStatus(ids, CONFIRMED)
-                    .stream()
-                    .collect(Collectors.toMap(ConfirmedRequests::getEvent, ConfirmedRequests::getCount));
             compilationDto.setEvents(compilation.getEvents().stream()
-                    .map(event -> EventMapper.toEventShortDto(event, confirmedRequests.get(event.getId())))
+                    .map(event -> EventMapper.toEventShortDto(event, event.getConfirmedRequests()))
                     .collect(Collectors.toList()));
         }
         return compilationDto;
@@ -0,0 +1,101 @@
+package ru.practicum.compilations.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.compilations.dto.CompilationDto;
+import ru.practicum.compilations.repository.CompilationRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/*
+ * Assembled pages of GET /compilations per (pinned, from, size). The first caller of a missing page builds it
+ * on the cache executor, concurrent callers of the same page wait for that build instead of starting their own.
+ * The loader runs outside the caller's transaction and opens its own. Writes that change what a page shows
+ * invalidate every page after their transaction commits; a build that was already running is discarded with
+ * the rest, so it cannot bring the old page back. Confirmed counts change without an invalidation and are
+ * refreshed by expire-after-write.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CompilationsCache implements InitializingBean, MeterBinder {
+    private final CompilationRepository compilationRepository;
+    @Value("${compilations.cache.maximum-size:1000}")
+    private long maximumSize;
+    @Value("${compilations.cache.expire-after-write-ms:60000}")
+    private long expireAfterWriteMs;
+    private AsyncCache<PageKey, List<CompilationDto>> pages;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Override
+    public void afterPropertiesSet() {
+        pages = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(expireAfterWriteMs))
+                .recordStats()
+                .buildAsync();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, pages, "compilations");
+        FunctionCounter.builder("compilations.cache.invalidations", invalidations, AtomicLong::get)
+                .register(registry);
+    }
+
+    // a failed build is removed from the cache by Caffeine, the next caller builds the page again
+    public List<CompilationDto> get(Boolean pinned, Integer from, Integer size, Supplier<List<CompilationDto>> loader) {
+        try {
+            return pages.get(new PageKey(pinned, from, size), key -> List.copyOf(loader.get())).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public void invalidateAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidate();
+                }
+            });
+        } else {
+            invalidate();
+        }
+    }
+
+    // events outside every compilation do not appear on any page
+    public void invalidateAfterCommitForEvent(Long eventId) {
+        if (compilationRepository.existsByEventsId(eventId)) {
+            invalidateAfterCommit();
+        }
+    }
+
+    private void invalidate() {
+        pages.synchronous().invalidateAll();
+        invalidations.incrementAndGet();
+        log.debug("Кэш подборок событий очищен");
+    }
+
+    private record PageKey(Boolean pinned, Integer from, Integer size) {
+    }
+}
@@ -6,6 +6,7 @@ import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.events.service.EventService;
@@ -54,10 +55,11 @@ public class EventControllerPrivate {
     }
 
     @GetMapping
-    List<EventShortDto> getEventsByOwner(@PathVariable Long userId,
+    ResponseEntity<List<EventShortDto>> getEventsByOwner(@PathVariable Long userId,
                                          @RequestParam(value = "from", defaultValue = "0") @PositiveOrZero Integer from,
+                                         @RequestParam(required = false) String after,
                                          @RequestParam(value = "size", defaultValue = "10") @Positive Integer size) {
-        return eventService.getEventsByOwner(userId, from, size);
+        return eventService.getEventsByOwner(userId, from, after, size).toResponse();
     }
 
     @GetMapping("/{eventId}")
@@ -5,6 +5,7 @@ import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.events.service.EventService;
@@ -24,8 +25,9 @@ public class EventControllerPublic {
     private final EventService eventService;
 
     @GetMapping
-    public List<EventViewsShortDto> getEvents(
+    public ResponseEntity<List<EventViewsShortDto>> getEvents(
             @RequestParam(required = false) String text,
+            @RequestParam(required = false) String textMode,
             @RequestParam(required = false) List<Long> categories,
             @RequestParam(required = false) Boolean paid,
             @RequestParam(required = false)
@@ -36,11 +38,12 @@ public class EventControllerPublic {
             @RequestParam(defaultValue = "EVENT_DATE") String sort,
             @RequestParam(value = "from", defaultValue = "0") @PositiveOrZero
             Integer from,
+            @RequestParam(required = false) String after,
             @RequestParam(value = "size", defaultValue = "10") @Positive
             Integer size,
             HttpServletRequest request) throws NotFoundException {
-        return eventService.getEvents(text, categories, paid, rangeStart, rangeEnd, onlyAvailable,
-                sort, from, size, request);
+        return eventService.getEvents(text, textMode, categories, paid, rangeStart, rangeEnd, onlyAvailable,
+                sort, from, after, size, request).toResponse();
     }
 
     @GetMapping("/{eventId}")
@@ -2,10 +2,13 @@ package ru.practicum.events.mapper;
 
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
+import ru.practicum.categories.dto.CategoryDto;
 import ru.practicum.categories.mapper.CategoryMapper;
 import ru.practicum.events.dto.*;
 import ru.practicum.events.model.Event;
+import ru.practicum.events.repository.EventShortView;
 import ru.practicum.locations.mapper.LocationMapper;
+import ru.practicum.users.dto.UserShortDto;
 import ru.practicum.users.mapper.UserMapper;
 
 
@@ -78,16 +81,29 @@ public class EventMapper {
                 .build();
     }
 
-    public static EventViewsShortDto toEventShortDtoWithViews(Event event, Long views, Long confirmedRequests) {
+    public static EventShortDto toEventShortDto(EventShortView event) {
+        return EventShortDto.builder()
+                .id(event.id())
+                .annotation(event.annotation())
+                .category(new CategoryDto(event.categoryId(), event.categoryName()))
+                .confirmedRequests(event.confirmedRequests())
+                .eventDate(event.eventDate())
+                .initiator(new UserShortDto(event.initiatorId(), event.initiatorName()))
+                .paid(event.paid())
+                .title(event.title())
+                .build();
+    }
+
+    public static EventViewsShortDto toEventShortDtoWithViews(EventShortView event, Long views) {
         return EventViewsShortDto.builder()
-                .id(event.getId())
-                .annotation(event.getAnnotation())
-                .category(CategoryMapper.toCategoryDto(event.getCategory()))
-                .confirmedRequests(confirmedRequests)
-                .eventDate(event.getEventDate())
-                .initiator(UserMapper.toUserShortDto(event.getInitiator()))
-                .paid(event.getPaid())
-                .title(event.getTitle())
+                .id(event.id())
+                .annotation(event.annotation())
+                .category(new CategoryDto(event.categoryId(), event.categoryName()))
+                .confirmedRequests(event.confirmedRequests())
+                .eventDate(event.eventDate())
+                .initiator(new UserShortDto(event.initiatorId(), event.initiatorName()))
+                .paid(event.paid())
+                .title(event.title())
                 .views(views)
                 .build();
     }
@@ -66,4 +66,12 @@ public class Event {
 
     @Column(nullable = false)
     private String title;
+
+    // changed only by the statements in RequestJdbcRepositoryImpl, so concurrent updates do not overwrite each other
+    @Column(name = "confirmed_requests", insertable = false, updatable = false)
+    private Long confirmedRequests;
+
+    // written only by EventViewsSync
+    @Column(insertable = false, updatable = false)
+    private Long views;
 }
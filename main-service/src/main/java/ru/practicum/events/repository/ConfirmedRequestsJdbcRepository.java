@@ -0,0 +1,28 @@
+package ru.practicum.events.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class ConfirmedRequestsJdbcRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    // every status change takes the same row lock through the counter update, so once these rows are held
+    // no other transaction can move a request of these events in or out of CONFIRMED until commit
+    public List<Long> lockIdsAfter(long afterId, int limit) {
+        return jdbcTemplate.queryForList("SELECT id FROM events WHERE id > ? ORDER BY id LIMIT ? FOR UPDATE",
+                Long.class, afterId, limit);
+    }
+
+    public int reconcile(long fromId, long toId) {
+        return jdbcTemplate.update("UPDATE events e SET confirmed_requests = c.confirmed " +
+                "FROM (SELECT ev.id, COUNT(r.id) AS confirmed FROM events ev " +
+                "LEFT JOIN requests r ON r.event_id = ev.id AND r.status = 'CONFIRMED' " +
+                "WHERE ev.id BETWEEN ? AND ? GROUP BY ev.id) c " +
+                "WHERE e.id = c.id AND e.confirmed_requests <> c.confirmed", fromId, toId);
+    }
+}
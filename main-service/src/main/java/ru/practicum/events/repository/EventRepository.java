@@ -3,8 +3,9 @@ package ru.practicum.events.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 import ru.practicum.events.model.Event;
 
@@ -13,16 +14,20 @@ import java.util.Optional;
 import java.util.Set;
 
 @Repository
-public interface EventRepository extends JpaRepository<Event, Long> {
-
-    List<Event> findAllByInitiatorId(Long userId, Pageable pageable);
+public interface EventRepository extends JpaRepository<Event, Long>, JpaSpecificationExecutor<Event>,
+        EventShortViewRepository {
+    // associations read by EventMapper: short DTOs need category and initiator, full DTOs also location
+    @Override
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
+    Optional<Event> findById(Long id);
+
+    @Override
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
+    Page<Event> findAll(Specification<Event> specification, Pageable pageable);
 
+    @EntityGraph(attributePaths = {"category", "initiator", "location"})
     Optional<Event> findByIdAndInitiatorId(Long eventId, Long userId);
 
-    @Query("SELECT e FROM Event e WHERE e.initiator.id IN :initiatorIds")
-    List<Event> findAllByInitiatorIdIn(List<Long> initiatorIds);
-
-    Page<Event> findAll(Specification<Event> specification, Pageable pageable);
-
+    @EntityGraph(attributePaths = {"category", "initiator"})
     Set<Event> findAllByIdIn(List<Long> events);
 }
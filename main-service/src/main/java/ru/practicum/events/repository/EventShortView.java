@@ -0,0 +1,13 @@
+package ru.practicum.events.repository;
+
+import java.time.LocalDateTime;
+
+/*
+ * Columns of an event needed for EventShortDto and EventViewsShortDto, with the category and initiator names
+ * joined in. Selected instead of Event so list queries do not read description or fill the persistence context.
+ */
+public record EventShortView(Long id, String annotation, Long categoryId, String categoryName,
+                             Long confirmedRequests, LocalDateTime eventDate, Long initiatorId,
+                             String initiatorName, Boolean paid, String title, Long views,
+                             LocalDateTime publishedOn) {
+}
@@ -0,0 +1,11 @@
+package ru.practicum.events.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.events.model.Event;
+
+import java.util.List;
+
+public interface EventShortViewRepository {
+    List<EventShortView> findShortViews(Specification<Event> specification, Pageable pageable);
+}
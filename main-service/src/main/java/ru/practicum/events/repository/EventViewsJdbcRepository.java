@@ -0,0 +1,51 @@
+package ru.practicum.events.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SequencedMap;
+
+@Repository
+@RequiredArgsConstructor
+public class EventViewsJdbcRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    // rows whose count did not change are matched but not rewritten, so the index is not churned needlessly
+    public void updateViews(Map<Long, Long> views) {
+        if (views.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Long>> rows = new ArrayList<>(views.entrySet());
+        jdbcTemplate.batchUpdate("UPDATE events SET views = ? WHERE id = ? AND views <> ?",
+                rows, rows.size(), (ps, row) -> {
+                    ps.setLong(1, row.getValue());
+                    ps.setLong(2, row.getKey());
+                    ps.setLong(3, row.getValue());
+                });
+    }
+
+    // id -> published_on of published events, in id order
+    public SequencedMap<Long, LocalDateTime> findPublishedAfter(long afterId, int limit) {
+        SequencedMap<Long, LocalDateTime> published = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT id, published_on FROM events WHERE id > ? AND published_on IS NOT NULL " +
+                "ORDER BY id LIMIT ?", rs -> {
+                    published.put(rs.getLong("id"), rs.getObject("published_on", LocalDateTime.class));
+                }, afterId, limit);
+        return published;
+    }
+
+    public Map<Long, LocalDateTime> findPublishedOn(List<Long> ids) {
+        Map<Long, LocalDateTime> published = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT id, published_on FROM events WHERE id = ANY(?) AND published_on IS NOT NULL",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids.toArray())), rs -> {
+                    published.put(rs.getLong("id"), rs.getObject("published_on", LocalDateTime.class));
+                });
+        return published;
+    }
+}
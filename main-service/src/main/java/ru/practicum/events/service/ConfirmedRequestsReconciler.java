@@ -0,0 +1,53 @@
+package ru.practicum.events.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.events.repository.ConfirmedRequestsJdbcRepository;
+
+import java.util.List;
+
+/*
+ * Recounts events.confirmed_requests from requests and fixes rows that drifted, e.g. after manual edits in the
+ * database. Each batch of events is locked first, so the recount cannot overwrite a concurrent increment.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ConfirmedRequestsReconciler {
+    private final ConfirmedRequestsJdbcRepository confirmedRequestsJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    @Value("${events.confirmed-requests.reconcile-batch-size:1000}")
+    private int batchSize;
+
+    @Scheduled(cron = "${events.confirmed-requests.reconcile-cron:0 30 * * * *}")
+    public void reconcile() {
+        long afterId = 0;
+        int repaired = 0;
+        while (true) {
+            long from = afterId;
+            Batch batch = transactionTemplate.execute(status -> {
+                List<Long> ids = confirmedRequestsJdbcRepository.lockIdsAfter(from, batchSize);
+                if (ids.isEmpty()) {
+                    return null;
+                }
+                return new Batch(ids.getLast(), confirmedRequestsJdbcRepository.reconcile(ids.getFirst(),
+                        ids.getLast()));
+            });
+            if (batch == null) {
+                break;
+            }
+            repaired += batch.repaired();
+            afterId = batch.lastId();
+        }
+        if (repaired > 0) {
+            log.warn("Исправлено счётчиков подтверждённых заявок: {}", repaired);
+        }
+    }
+
+    private record Batch(long lastId, int repaired) {
+    }
+}
@@ -3,6 +3,7 @@ package ru.practicum.events.service;
 import jakarta.servlet.http.HttpServletRequest;
 import ru.practicum.events.dto.*;
 import ru.practicum.exceptions.NotFoundException;
+import ru.practicum.pagination.CursorPage;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -14,7 +15,7 @@ public interface EventService {
 
     EventFullDto updateEventByAdmin(Long eventId, EventUpdateAdminDto updateEvent) throws NotFoundException;
 
-    List<EventShortDto> getEventsByOwner(Long userId, Integer from, Integer size);
+    CursorPage<EventShortDto> getEventsByOwner(Long userId, Integer from, String after, Integer size);
 
     EventFullDto getEventByOwner(Long userId, Long eventId) throws NotFoundException;
 
@@ -22,9 +23,10 @@ public interface EventService {
                                                    LocalDateTime rangeStart, LocalDateTime rangeEnd,
                                                    Integer from, Integer size) throws NotFoundException;
 
-    List<EventViewsShortDto> getEvents(String text, List<Long> categories, Boolean paid, LocalDateTime rangeStart,
-                                       LocalDateTime rangeEnd, Boolean onlyAvailable, String sort, Integer from,
-                                       Integer size, HttpServletRequest request) throws NotFoundException;
+    CursorPage<EventViewsShortDto> getEvents(String text, String textMode, List<Long> categories, Boolean paid,
+                                             LocalDateTime rangeStart, LocalDateTime rangeEnd, Boolean onlyAvailable,
+                                             String sort, Integer from, String after, Integer size,
+                                             HttpServletRequest request) throws NotFoundException;
 
 
     EventViewsFullDto getEventById(Long eventId, HttpServletRequest request) throws NotFoundException;
@@ -1,22 +1,22 @@
 package ru.practicum.events.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.categories.model.Category;
 import ru.practicum.categories.mapper.CategoryMapper;
 import ru.practicum.categories.repository.CategoryRepository;
 import ru.practicum.categories.service.CategoryServiceImpl;
+import ru.practicum.compilations.service.CompilationsCache;
 import ru.practicum.events.dto.*;
 import ru.practicum.events.enums.State;
 import ru.practicum.events.enums.StateActionAdmin;
@@ -24,23 +24,24 @@ import ru.practicum.events.enums.StateActionPrivate;
 import ru.practicum.events.mapper.EventMapper;
 import ru.practicum.events.model.Event;
 import ru.practicum.events.repository.EventRepository;
+import ru.practicum.events.repository.EventShortView;
 import ru.practicum.exceptions.BadRequestException;
 import ru.practicum.exceptions.ForbiddenException;
 import ru.practicum.exceptions.NotFoundException;
 import ru.practicum.locations.model.Location;
 import ru.practicum.locations.mapper.LocationMapper;
 import ru.practicum.locations.repository.LocationRepository;
-import ru.practicum.requests.repository.RequestRepository;
-import ru.practicum.requests.dto.ConfirmedRequests;
+import ru.practicum.pagination.CursorPage;
+import ru.practicum.pagination.OffsetPageRequest;
+import ru.practicum.pagination.PageCursor;
 import ru.practicum.stats.StatsClient;
-import ru.practicum.ViewStatsDto;
 import ru.practicum.EndpointHitDto;
 import ru.practicum.users.model.User;
 import ru.practicum.users.repository.UserRepository;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 import static ru.practicum.events.enums.State.PENDING;
 import static ru.practicum.events.enums.State.PUBLISHED;
@@ -48,7 +49,6 @@ import static ru.practicum.events.enums.StateActionAdmin.PUBLISH_EVENT;
 import static ru.practicum.events.enums.StateActionAdmin.REJECT_EVENT;
 import static ru.practicum.events.enums.StateActionPrivate.CANCEL_REVIEW;
 import static ru.practicum.events.enums.StateActionPrivate.SEND_TO_REVIEW;
-import static ru.practicum.requests.enums.RequestStatus.CONFIRMED;
 
 
 @Slf4j
@@ -60,10 +60,13 @@ public class EventServiceImpl implements EventService {
     private final CategoryRepository categoryRepository;
     private final CategoryServiceImpl categoryService;
     private final LocationRepository locationRepository;
-    private final RequestRepository requestRepository;
     private final StatsClient statsClient;
+    private final EventViewsCache eventViewsCache;
+    private final CompilationsCache compilationsCache;
     @Value("${app}")
     String app;
+    @Value("${events.search.text-mode:SUBSTRING}")
+    String defaultTextMode;
 
     @Override
     @Transactional
@@ -135,9 +138,9 @@ public class EventServiceImpl implements EventService {
                 event.get().setState(State.CANCELED);
             }
         }
+        compilationsCache.invalidateAfterCommitForEvent(eventId);
         log.info("updateEventByOwner изменение события {} добавленного текущим пользователем {}", event, userId);
-        return EventMapper.toEventFullDto(eventRepository.save(event.get()),
-                requestRepository.countByEventIdAndStatus(eventId, CONFIRMED));
+        return EventMapper.toEventFullDto(eventRepository.save(event.get()), event.get().getConfirmedRequests());
     }
 
     @Override
@@ -191,23 +194,25 @@ public class EventServiceImpl implements EventService {
         if (title != null && !title.isBlank()) {
             event.setTitle(title);
         }
+        compilationsCache.invalidateAfterCommitForEvent(eventId);
         log.info("updateEventByAdmin обновление данных события {}", event);
-        return EventMapper.toEventFullDto(eventRepository.save(event),
-                requestRepository.countByEventIdAndStatus(eventId, CONFIRMED));
+        return EventMapper.toEventFullDto(eventRepository.save(event), event.getConfirmedRequests());
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<EventShortDto> getEventsByOwner(Long userId, Integer from, Integer size) {
-        List<Event> events = eventRepository.findAllByInitiatorId(userId, PageRequest.of(from / size, size));
-        List<Long> ids = events.stream().map(Event::getId).collect(Collectors.toList());
-        Map<Long, Long> confirmedRequests = requestRepository.findAllByEventIdInAndStatus(ids, CONFIRMED)
-                .stream()
-                .collect(Collectors.toMap(ConfirmedRequests::getEvent, ConfirmedRequests::getCount));
+    public CursorPage<EventShortDto> getEventsByOwner(Long userId, Integer from, String after, Integer size) {
+        Specification<Event> specification = (root, query, criteriaBuilder) ->
+                criteriaBuilder.equal(root.get("initiator").get("id"), userId);
+        if (after != null) {
+            Long afterId = PageCursor.decode(after).getId();
+            specification = specification.and((root, query, criteriaBuilder) ->
+                    criteriaBuilder.greaterThan(root.get("id"), afterId));
+        }
+        List<EventShortView> events = eventRepository.findShortViews(specification,
+                OffsetPageRequest.of(after != null ? 0 : from, size, Sort.by("id")));
         log.info("getEventsByOwner получение событий добавленных текущим пользователем {}", userId);
-        return events.stream()
-                .map(event -> EventMapper.toEventShortDto(event, confirmedRequests.getOrDefault(event.getId(), 0L)))
-                .collect(Collectors.toList());
+        return CursorPage.of(events, size, EventMapper::toEventShortDto, event -> PageCursor.ofId(event.id()));
     }
 
     @Override
@@ -216,7 +221,7 @@ public class EventServiceImpl implements EventService {
         getEvent(eventId);
         log.info("getEventByOwner получение информации о событие {} добавленом текущим пользователем {}", eventId, userId);
         Optional<Event> event = eventRepository.findByIdAndInitiatorId(eventId, userId);
-        return EventMapper.toEventFullDto(event.get(), requestRepository.countByEventIdAndStatus(eventId, CONFIRMED));
+        return EventMapper.toEventFullDto(event.get(), event.get().getConfirmedRequests());
     }
 
     @Override
@@ -248,30 +253,15 @@ public class EventServiceImpl implements EventService {
             specification = specification.and((root, query, criteriaBuilder) ->
                     criteriaBuilder.lessThanOrEqualTo(root.get("eventDate"), rangeEnd));
         }
-        List<Event> events = eventRepository.findAll(specification, PageRequest.of(from / size, size)).getContent();
+        List<Event> events = eventRepository.findAll(specification,
+                OffsetPageRequest.of(from, size, Sort.by("id"))).getContent();
         List<EventViewsFullDto> result = new ArrayList<>();
-        List<String> uris = events.stream()
-                .map(event -> String.format("/events/%s", event.getId()))
-                .collect(Collectors.toList());
-        LocalDateTime start = events.stream()
-                .map(Event::getCreatedOn)
-                .min(LocalDateTime::compareTo)
-                .orElseThrow(() -> new NotFoundException("Start not found"));
-        ResponseEntity<Object> response = statsClient.getStats(start, LocalDateTime.now(), uris, true);
-        List<Long> ids = events.stream().map(Event::getId).collect(Collectors.toList());
-        Map<Long, Long> confirmedRequests = requestRepository.findAllByEventIdInAndStatus(ids, CONFIRMED).stream()
-                .collect(Collectors.toMap(ConfirmedRequests::getEvent, ConfirmedRequests::getCount));
+        Map<Long, LocalDateTime> publishedOn = new HashMap<>();
+        events.forEach(event -> publishedOn.put(event.getId(), event.getPublishedOn()));
+        Map<Long, Long> views = eventViewsCache.getViews(publishedOn);
         for (Event event : events) {
-            ObjectMapper mapper = new ObjectMapper();
-            List<ViewStatsDto> statsDto = mapper.convertValue(response.getBody(), new TypeReference<>() {
-            });
-            if (!statsDto.isEmpty()) {
-                result.add(EventMapper.toEventFullDtoWithViews(event, statsDto.getFirst().getHits(),
-                        confirmedRequests.getOrDefault(event.getId(), 0L)));
-            } else {
-                result.add(EventMapper.toEventFullDtoWithViews(event, 0L,
-                        confirmedRequests.getOrDefault(event.getId(), 0L)));
-            }
+            result.add(EventMapper.toEventFullDtoWithViews(event, views.getOrDefault(event.getId(), 0L),
+                    event.getConfirmedRequests()));
         }
         log.info("getEventsByAdminParams получение событий с параметрами");
         return result;
@@ -279,14 +269,25 @@ public class EventServiceImpl implements EventService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<EventViewsShortDto> getEvents(String text, List<Long> categories, Boolean paid, LocalDateTime rangeStart,
-                                              LocalDateTime rangeEnd, Boolean onlyAvailable, String sort, Integer from,
-                                              Integer size, HttpServletRequest request) throws NotFoundException {
+    public CursorPage<EventViewsShortDto> getEvents(String text, String textMode, List<Long> categories,
+                                                    Boolean paid, LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                                                    Boolean onlyAvailable, String sort, Integer from, String after,
+                                                    Integer size, HttpServletRequest request)
+            throws NotFoundException {
         if (rangeStart != null && rangeEnd != null && rangeStart.isAfter(rangeEnd)) {
             throw new BadRequestException("Incorrectly made request, Start is after End");
         }
+        String mode = Objects.requireNonNullElse(textMode, defaultTextMode);
+        if (!mode.equals("FULL_TEXT") && !mode.equals("SUBSTRING")) {
+            throw new ValidationException("Unknown text mode: " + textMode);
+        }
+        boolean fullText = text != null && !text.isBlank() && mode.equals("FULL_TEXT");
         Specification<Event> specification = Specification.where(null);
-        if (text != null) {
+        if (fullText) {
+            specification = specification.and((root, query, criteriaBuilder) ->
+                    criteriaBuilder.isTrue(criteriaBuilder.function("fts_match", Boolean.class,
+                            root.get("annotation"), root.get("description"), bound(criteriaBuilder, text))));
+        } else if (text != null) {
             specification = specification.and((root, query, criteriaBuilder) ->
                     criteriaBuilder.or(
                             criteriaBuilder.like(criteriaBuilder.lower(root.get("annotation")), "%" + text.toLowerCase() + "%"),
@@ -315,41 +316,56 @@ public class EventServiceImpl implements EventService {
         }
         specification = specification.and((root, query, criteriaBuilder) ->
                 criteriaBuilder.equal(root.get("state"), PUBLISHED));
-        PageRequest pageRequest;
+        PageCursor cursor = after != null ? PageCursor.decode(after) : null;
+        Sort order;
+        Function<EventShortView, PageCursor> cursorOf;
         if (sort.equals("EVENT_DATE")) {
-            pageRequest = PageRequest.of(from / size, size, Sort.by("eventDate"));
+            order = Sort.by("eventDate", "id");
+            cursorOf = event -> new PageCursor(event.id(), event.eventDate());
+            if (cursor != null) {
+                LocalDateTime key = cursor.keyAsDateTime();
+                specification = specification.and((root, query, criteriaBuilder) -> criteriaBuilder.or(
+                        criteriaBuilder.greaterThan(root.get("eventDate"), key),
+                        criteriaBuilder.and(criteriaBuilder.equal(root.get("eventDate"), key),
+                                criteriaBuilder.greaterThan(root.get("id"), cursor.getId()))));
+            }
         } else if (sort.equals("VIEWS")) {
-            pageRequest = PageRequest.of(from / size, size, Sort.by("views").descending());
+            order = Sort.by(Sort.Order.desc("views"), Sort.Order.asc("id"));
+            cursorOf = event -> new PageCursor(event.id(), event.views());
+            if (cursor != null) {
+                long key = cursor.keyAsLong();
+                specification = specification.and((root, query, criteriaBuilder) -> criteriaBuilder.or(
+                        criteriaBuilder.lessThan(root.get("views"), key),
+                        criteriaBuilder.and(criteriaBuilder.equal(root.get("views"), key),
+                                criteriaBuilder.greaterThan(root.get("id"), cursor.getId()))));
+            }
+        } else if (sort.equals("RELEVANCE")) {
+            if (!fullText) {
+                throw new ValidationException("Sort RELEVANCE requires text in FULL_TEXT mode");
+            }
+            if (cursor != null) {
+                throw new BadRequestException("Cursor is not supported for sort RELEVANCE, use from");
+            }
+            // Sort cannot hold a function call, so the order is set on the query itself
+            specification = specification.and((root, query, criteriaBuilder) -> {
+                query.orderBy(criteriaBuilder.desc(criteriaBuilder.function("fts_rank", Double.class,
+                        root.get("annotation"), root.get("description"), bound(criteriaBuilder, text))),
+                        criteriaBuilder.asc(root.get("id")));
+                return null;
+            });
+            order = Sort.unsorted();
+            cursorOf = null;
         } else {
             throw new ValidationException("Unknown sort: " + sort);
         }
-        List<Event> events = eventRepository.findAll(specification, pageRequest).getContent();
-        List<EventViewsShortDto> result = new ArrayList<>();
-        List<String> uris = events.stream()
-                .map(event -> String.format("/events/%s", event.getId()))
-                .collect(Collectors.toList());
-        LocalDateTime start = events.stream()
-                .map(Event::getCreatedOn)
-                .min(LocalDateTime::compareTo)
-                .orElseThrow(() -> new NotFoundException("Start not found"));
-        ResponseEntity<Object> response = statsClient.getStats(start, LocalDateTime.now(), uris, true);
-        System.out.println(response.getBody());
-        List<Long> ids = events.stream().map(Event::getId).collect(Collectors.toList());
-        Map<Long, Long> confirmedRequests = requestRepository.findAllByEventIdInAndStatus(ids, CONFIRMED)
-                .stream()
-                .collect(Collectors.toMap(ConfirmedRequests::getEvent, ConfirmedRequests::getCount));
-        for (Event event : events) {
-            ObjectMapper mapper = new ObjectMapper();
-            List<ViewStatsDto> statsDto = mapper.convertValue(response.getBody(), new TypeReference<>() {
-            });
-            if (!statsDto.isEmpty()) {
-                result.add(EventMapper.toEventShortDtoWithViews(event, statsDto.getFirst().getHits(),
-                        confirmedRequests.getOrDefault(event.getId(), 0L)));
-            } else {
-                result.add(EventMapper.toEventShortDtoWithViews(event, 0L,
-                        confirmedRequests.getOrDefault(event.getId(), 0L)));
-            }
-        }
+        List<EventShortView> events = eventRepository.findShortViews(specification,
+                OffsetPageRequest.of(cursor != null ? 0 : from, size, order));
+        Map<Long, LocalDateTime> publishedOn = new HashMap<>();
+        events.forEach(event -> publishedOn.put(event.id(), event.publishedOn()));
+        Map<Long, Long> views = eventViewsCache.getViews(publishedOn);
+        CursorPage<EventViewsShortDto> result = CursorPage.of(events, size,
+                event -> EventMapper.toEventShortDtoWithViews(event, views.getOrDefault(event.id(), 0L)),
+                cursorOf);
         EndpointHitDto hit = new EndpointHitDto(app, request.getRequestURI(), request.getRemoteAddr(),
                 LocalDateTime.now());
         statsClient.save(hit);
@@ -364,19 +380,8 @@ public class EventServiceImpl implements EventService {
         if (event.getState() != PUBLISHED) {
             throw new NotFoundException("Event is not PUBLISHED");
         }
-        ResponseEntity<Object> response = statsClient.getStats(event.getCreatedOn(), LocalDateTime.now(),
-                List.of(request.getRequestURI()), true);
-        ObjectMapper mapper = new ObjectMapper();
-        List<ViewStatsDto> statsDto = mapper.convertValue(response.getBody(), new TypeReference<>() {
-        });
-        EventViewsFullDto result;
-        if (!statsDto.isEmpty()) {
-            result = EventMapper.toEventFullDtoWithViews(event, statsDto.getFirst().getHits(),
-                    requestRepository.countByEventIdAndStatus(eventId, CONFIRMED));
-        } else {
-            result = EventMapper.toEventFullDtoWithViews(event, 0L,
-                    requestRepository.countByEventIdAndStatus(eventId, CONFIRMED));
-        }
+        long views = eventViewsCache.getViews(eventId, event.getPublishedOn());
+        EventViewsFullDto result = EventMapper.toEventFullDtoWithViews(event, views, event.getConfirmedRequests());
         EndpointHitDto hit = new EndpointHitDto(app, request.getRequestURI(), request.getRemoteAddr(),
                 LocalDateTime.now());
         statsClient.save(hit);
@@ -384,6 +389,11 @@ public class EventServiceImpl implements EventService {
         return result;
     }
 
+    // literal() would inline user input into the SQL text, value() binds it as a JDBC parameter
+    private static Expression<String> bound(CriteriaBuilder criteriaBuilder, String value) {
+        return ((HibernateCriteriaBuilder) criteriaBuilder).value(value);
+    }
+
     private void validateEventTime(LocalDateTime eventTime) {
         if (eventTime.isBefore(LocalDateTime.now().plusHours(2))) {
             throw new ValidationException("Incorrectly made request, event time");
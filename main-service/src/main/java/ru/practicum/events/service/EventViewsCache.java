@@ -0,0 +1,140 @@
+package ru.practicum.events.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.StatsClient;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/*
+ * Unique view counts per event. An event can only be viewed once it is published, so its hits are counted from
+ * publishedOn; a batch of misses is asked for from the earliest publication among them. Unpublished events
+ * have no views and are not looked up. Entries older than refresh-after-write are still served while a background
+ * reload runs; entries older than expire-after-write are dropped and loaded again. Misses of one page are
+ * fetched from the stats server in a single request. When the stats server does not answer within the latency
+ * budget (or its circuit breaker is open) the last count seen for an event is returned, or 0 if there is none.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EventViewsCache implements InitializingBean, MeterBinder {
+    private final StatsClient statsClient;
+    @Value("${events.views-cache.maximum-size:10000}")
+    private long maximumSize;
+    @Value("${events.views-cache.expire-after-write-ms:300000}")
+    private long expireAfterWriteMs;
+    @Value("${events.views-cache.refresh-after-write-ms:30000}")
+    private long refreshAfterWriteMs;
+    @Value("${events.views-cache.latency-budget-ms:300}")
+    private long latencyBudgetMs;
+    private AsyncLoadingCache<EventKey, Long> cache;
+    // outlives cache expiry, only read when the stats server is unavailable
+    private Cache<Long, Long> lastKnown;
+
+    @Override
+    public void afterPropertiesSet() {
+        lastKnown = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(expireAfterWriteMs))
+                .refreshAfterWrite(Duration.ofMillis(refreshAfterWriteMs))
+                .recordStats()
+                .buildAsync(new AsyncCacheLoader<EventKey, Long>() {
+                    @Override
+                    public CompletableFuture<Long> asyncLoad(EventKey key, Executor executor) {
+                        return statsClient.viewsByEventIdAsync(List.of(key.id()), key.publishedOn(),
+                                LocalDateTime.now(), true).thenApply(views -> {
+                                    lastKnown.putAll(views);
+                                    return views.getOrDefault(key.id(), 0L);
+                                });
+                    }
+
+                    @Override
+                    public CompletableFuture<Map<EventKey, Long>> asyncLoadAll(Set<? extends EventKey> keys,
+                                                                               Executor executor) {
+                        List<Long> ids = keys.stream().map(EventKey::id).toList();
+                        LocalDateTime from = keys.stream().map(EventKey::publishedOn)
+                                .min(LocalDateTime::compareTo).orElseThrow();
+                        return statsClient.viewsByEventIdAsync(ids, from, LocalDateTime.now(), true)
+                                .thenApply(views -> {
+                                    lastKnown.putAll(views);
+                                    Map<EventKey, Long> result = HashMap.newHashMap(keys.size());
+                                    for (EventKey key : keys) {
+                                        result.put(key, views.getOrDefault(key.id(), 0L));
+                                    }
+                                    return result;
+                                });
+                    }
+                });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "eventViews");
+    }
+
+    public long getViews(Long eventId, LocalDateTime publishedOn) {
+        Map<Long, LocalDateTime> published = new HashMap<>();
+        published.put(eventId, publishedOn);
+        return getViews(published).getOrDefault(eventId, 0L);
+    }
+
+    // event id -> publishedOn, null for events not published yet;
+    // a request that misses the budget keeps running and fills the cache for the next caller
+    public Map<Long, Long> getViews(Map<Long, LocalDateTime> publishedOn) {
+        Map<Long, Long> views = HashMap.newHashMap(publishedOn.size());
+        List<EventKey> keys = new ArrayList<>(publishedOn.size());
+        publishedOn.forEach((id, published) -> {
+            if (published != null) {
+                keys.add(new EventKey(id, published));
+            } else {
+                views.put(id, 0L);
+            }
+        });
+        if (keys.isEmpty()) {
+            return views;
+        }
+        try {
+            cache.getAll(keys).get(latencyBudgetMs, TimeUnit.MILLISECONDS)
+                    .forEach((key, count) -> views.put(key.id(), count));
+            return views;
+        } catch (TimeoutException | ExecutionException e) {
+            log.warn("Просмотры событий не получены от сервера статистики, отдаются последние известные: {}",
+                    e.toString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (EventKey key : keys) {
+            Long known = lastKnown.getIfPresent(key.id());
+            views.put(key.id(), known != null ? known : 0L);
+        }
+        return views;
+    }
+
+    // publishedOn is set once, so it never goes stale within a key
+    private record EventKey(Long id, LocalDateTime publishedOn) {
+    }
+}
@@ -0,0 +1,112 @@
+package ru.practicum.events.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.events.repository.EventViewsJdbcRepository;
+import ru.practicum.stats.StatsClient;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SequencedMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Keeps events.views close to the unique view count on the stats server, so sort=VIEWS can page in the database.
+ * Unique counts do not add up across time ranges, so a sync asks which event pages were hit since the previous
+ * one and reloads the full unique totals of just those events. The first run after start walks all published
+ * events. Totals are counted from publication, the earliest one of a batch bounds the range asked for.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EventViewsSync implements MeterBinder {
+    private final StatsClient statsClient;
+    private final EventViewsJdbcRepository eventViewsJdbcRepository;
+    @Value("${events.views-sync.batch-size:500}")
+    private int batchSize;
+    // hits are buffered by clients and may arrive with timestamps slightly in the past
+    @Value("${events.views-sync.overlap-ms:60000}")
+    private long overlapMs;
+    private final AtomicLong updated = new AtomicLong();
+    private volatile LocalDateTime syncedUpTo;
+    private volatile Timer batchTimer;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("events.views.sync.lag", this, EventViewsSync::lagSeconds)
+                .description("Seconds since the last hit reflected in events.views")
+                .baseUnit("seconds")
+                .register(registry);
+        FunctionCounter.builder("events.views.sync.updated", updated, AtomicLong::get)
+                .description("Event view counts written by the sync")
+                .register(registry);
+        batchTimer = Timer.builder("events.views.sync.batch")
+                .description("Time to fetch and store view counts of one batch of events")
+                .register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${events.views-sync.interval-ms:30000}",
+            initialDelayString = "${events.views-sync.initial-delay-ms:10000}")
+    public void sync() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            if (syncedUpTo == null) {
+                syncAll(now);
+            } else {
+                LocalDateTime from = syncedUpTo.minus(Duration.ofMillis(overlapMs));
+                List<Long> ids = new ArrayList<>(statsClient.viewedEventIdsAsync(from, now).join());
+                for (int i = 0; i < ids.size(); i += batchSize) {
+                    syncBatch(eventViewsJdbcRepository.findPublishedOn(
+                            ids.subList(i, Math.min(i + batchSize, ids.size()))), now);
+                }
+            }
+            syncedUpTo = now;
+        } catch (CompletionException e) {
+            log.warn("Синхронизация просмотров событий не выполнена: {}", e.getCause().toString());
+        }
+    }
+
+    private void syncAll(LocalDateTime now) {
+        long afterId = 0;
+        SequencedMap<Long, LocalDateTime> published;
+        while (!(published = eventViewsJdbcRepository.findPublishedAfter(afterId, batchSize)).isEmpty()) {
+            syncBatch(published, now);
+            afterId = published.lastEntry().getKey();
+        }
+        log.info("Просмотры всех событий синхронизированы на {}", now);
+    }
+
+    // event id -> publishedOn
+    private void syncBatch(Map<Long, LocalDateTime> published, LocalDateTime now) {
+        if (published.isEmpty()) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        LocalDateTime from = published.values().stream().min(LocalDateTime::compareTo).orElseThrow();
+        Map<Long, Long> views = statsClient.viewsByEventIdAsync(published.keySet(), from, now, true).join();
+        eventViewsJdbcRepository.updateViews(views);
+        updated.addAndGet(views.size());
+        Timer timer = batchTimer;
+        if (timer != null) {
+            timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private double lagSeconds() {
+        LocalDateTime synced = syncedUpTo;
+        return synced != null ? Duration.between(synced, LocalDateTime.now()).toSeconds() : Double.NaN;
+    }
+}
@@ -0,0 +1,35 @@
+package ru.practicum.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Getter
+@AllArgsConstructor
+public class CursorPage<T> {
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    // a short page is the last one, a full page may or may not be followed by more rows;
+    // orders that cannot be resumed from a row pass no cursor function and only support `from`
+    public static <E, T> CursorPage<T> of(List<E> rows, int size, Function<E, T> mapper,
+                                          Function<E, PageCursor> cursor) {
+        String next = cursor != null && rows.size() == size && !rows.isEmpty()
+                ? cursor.apply(rows.getLast()).encode()
+                : null;
+        return new CursorPage<>(rows.stream().map(mapper).toList(), next);
+    }
+
+    public ResponseEntity<List<T>> toResponse() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(items);
+    }
+}
@@ -0,0 +1,59 @@
+package ru.practicum.pagination;
+
+import lombok.Getter;
+import ru.practicum.exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/*
+ * Position after the last row of a page: the value of the sort column and the id that breaks ties in it.
+ * Clients get it as an opaque token and pass it back in `after`. Lists ordered by id alone leave the key empty.
+ */
+@Getter
+public class PageCursor {
+    private final long id;
+    private final String key;
+
+    public PageCursor(long id, Object key) {
+        this.id = id;
+        this.key = key != null ? key.toString() : "";
+    }
+
+    public static PageCursor ofId(long id) {
+        return new PageCursor(id, null);
+    }
+
+    public static PageCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf(':');
+            return new PageCursor(Long.parseLong(value.substring(0, separator)), value.substring(separator + 1));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new BadRequestException("Invalid cursor: " + token);
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((id + ":" + key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public long keyAsLong() {
+        try {
+            return Long.parseLong(key);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Cursor does not match the sort: " + encode());
+        }
+    }
+
+    public LocalDateTime keyAsDateTime() {
+        try {
+            return LocalDateTime.parse(key);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Cursor does not match the sort: " + encode());
+        }
+    }
+}
@@ -24,7 +24,7 @@ public class RequestController {
     }
 
     @PatchMapping("/{requestId}/cancel")
-    public RequestDto cancelRequest(@PathVariable Long userId, @PathVariable Long requestId) {
+    public RequestDto cancelRequest(@PathVariable Long userId, @PathVariable Long requestId) throws NotFoundException {
         return requestService.cancelRequest(userId, requestId);
     }
 
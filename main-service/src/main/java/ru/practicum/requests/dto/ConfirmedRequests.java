@@ -1,14 +0,0 @@
-package ru.practicum.requests.dto;
-
-import lombok.AllArgsConstructor;
-import lombok.Getter;
-import lombok.Setter;
-
-@Getter
-@Setter
-@AllArgsConstructor
-public class ConfirmedRequests {
-    private Long count;
-    private Long event;
-
-}
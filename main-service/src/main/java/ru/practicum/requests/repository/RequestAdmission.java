@@ -0,0 +1,11 @@
+package ru.practicum.requests.repository;
+
+import ru.practicum.requests.dto.RequestDto;
+
+/*
+ * Outcome of one admission attempt together with the event state it was decided on, so the caller can tell
+ * why nothing was inserted. request is null when no row was inserted.
+ */
+public record RequestAdmission(boolean eventFound, boolean userFound, Long initiatorId, String state,
+                               boolean capacityLeft, RequestDto request) {
+}
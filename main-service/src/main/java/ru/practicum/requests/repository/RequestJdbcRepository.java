@@ -0,0 +1,16 @@
+package ru.practicum.requests.repository;
+
+import ru.practicum.requests.dto.EventRequestStatusUpdateResult;
+import ru.practicum.requests.dto.RequestDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface RequestJdbcRepository {
+    RequestAdmission admit(Long userId, Long eventId, LocalDateTime created);
+
+    Optional<RequestDto> cancel(Long userId, Long requestId);
+
+    EventRequestStatusUpdateResult updateStatuses(Long eventId, List<Long> requestIds, boolean confirm);
+}
@@ -0,0 +1,144 @@
+package ru.practicum.requests.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.practicum.requests.dto.EventRequestStatusUpdateResult;
+import ru.practicum.requests.dto.RequestDto;
+import ru.practicum.requests.enums.RequestStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class RequestJdbcRepositoryImpl implements RequestJdbcRepository {
+    /*
+     * One statement decides and records the request:
+     * - slot takes a confirmed place when the event admits without moderation. Under READ COMMITTED the
+     *   capacity condition is rechecked against the latest row version after waiting for its lock, so
+     *   concurrent requesters cannot oversubscribe participant_limit.
+     * - ins inserts the request; the unique (requester_id, event_id) key turns a duplicate into no row.
+     * A slot taken for a duplicate is undone by the caller rolling the transaction back.
+     */
+    private static final String ADMIT = "WITH ev AS (" +
+            "SELECT id, initiator_id, state, participant_limit, confirmed_requests, " +
+            "request_moderation AND participant_limit <> 0 AS moderated, " +
+            "EXISTS (SELECT 1 FROM users WHERE id = :userId) AS user_found " +
+            "FROM events WHERE id = :eventId), " +
+            "eligible AS (" +
+            "SELECT * FROM ev WHERE user_found AND state = 'PUBLISHED' AND initiator_id <> :userId), " +
+            "slot AS (" +
+            "UPDATE events e SET confirmed_requests = e.confirmed_requests + 1 FROM eligible " +
+            "WHERE e.id = eligible.id AND NOT eligible.moderated " +
+            "AND (eligible.participant_limit = 0 OR e.confirmed_requests < eligible.participant_limit) " +
+            "RETURNING e.id), " +
+            "ins AS (" +
+            "INSERT INTO requests (created, event_id, requester_id, status) " +
+            "SELECT :created, id, :userId, CASE WHEN moderated THEN 'PENDING' ELSE 'CONFIRMED' END FROM eligible " +
+            "WHERE EXISTS (SELECT 1 FROM slot) " +
+            "OR moderated AND confirmed_requests < participant_limit " +
+            "ON CONFLICT (requester_id, event_id) DO NOTHING " +
+            "RETURNING id, created, status) " +
+            "SELECT ev.user_found, ev.initiator_id, ev.state, " +
+            "EXISTS (SELECT 1 FROM slot) OR ev.moderated AND ev.confirmed_requests < ev.participant_limit " +
+            "AS capacity_left, " +
+            "ins.id, ins.created, ins.status " +
+            "FROM ev LEFT JOIN ins ON TRUE";
+
+    /*
+     * Confirms as many of the listed pending requests as the event still has places for (all of them when
+     * participant_limit is 0, none when rejecting) and rejects the rest, in request id order. The event row is
+     * locked first, so the remaining capacity cannot change until the counter update in the same statement.
+     */
+    private static final String UPDATE_STATUSES = "WITH ev AS (" +
+            "SELECT participant_limit, confirmed_requests FROM events WHERE id = :eventId FOR UPDATE), " +
+            "picked AS (" +
+            "SELECT id FROM requests WHERE event_id = :eventId AND id = ANY(:ids) AND status = 'PENDING' " +
+            "ORDER BY id LIMIT (SELECT CASE WHEN NOT :confirm THEN 0 WHEN participant_limit = 0 THEN NULL " +
+            "ELSE GREATEST(participant_limit - confirmed_requests, 0) END FROM ev) FOR UPDATE), " +
+            "confirmed AS (" +
+            "UPDATE requests r SET status = 'CONFIRMED' FROM picked WHERE r.id = picked.id " +
+            "RETURNING r.id, r.created, r.requester_id, r.status), " +
+            "rejected AS (" +
+            "UPDATE requests SET status = 'REJECTED' WHERE event_id = :eventId AND id = ANY(:ids) " +
+            "AND status = 'PENDING' AND id NOT IN (SELECT id FROM picked) " +
+            "RETURNING id, created, requester_id, status), " +
+            "counter AS (" +
+            "UPDATE events SET confirmed_requests = confirmed_requests + (SELECT COUNT(*) FROM confirmed) " +
+            "WHERE id = :eventId) " +
+            "SELECT * FROM confirmed UNION ALL SELECT * FROM rejected ORDER BY id";
+
+    /*
+     * Cancels the request and gives its confirmed place back in one statement. The event row is locked first, in
+     * the same order as UPDATE_STATUSES, so a cancel and a status update of the same event run one after the
+     * other; the locked request row is read in its latest version, so only the cancel that actually moves a
+     * CONFIRMED request decrements the counter. An already canceled request is returned unchanged.
+     */
+    private static final String CANCEL = "WITH ev AS (" +
+            "SELECT e.id FROM events e JOIN requests r ON r.event_id = e.id " +
+            "WHERE r.id = :requestId AND r.requester_id = :userId FOR UPDATE OF e), " +
+            "old AS (" +
+            "SELECT r.id, r.created, r.event_id, r.status FROM requests r JOIN ev ON ev.id = r.event_id " +
+            "WHERE r.id = :requestId FOR UPDATE OF r), " +
+            "canceled AS (" +
+            "UPDATE requests r SET status = 'CANCELED' FROM old " +
+            "WHERE r.id = old.id AND old.status <> 'CANCELED' " +
+            "RETURNING r.id, r.created, r.event_id, r.status), " +
+            "counter AS (" +
+            "UPDATE events SET confirmed_requests = confirmed_requests - 1 FROM old " +
+            "WHERE events.id = old.event_id AND old.status = 'CONFIRMED') " +
+            "SELECT * FROM canceled UNION ALL SELECT * FROM old WHERE status = 'CANCELED'";
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Override
+    public RequestAdmission admit(Long userId, Long eventId, LocalDateTime created) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("eventId", eventId)
+                .addValue("created", created);
+        return namedJdbcTemplate.query(ADMIT, params, rs -> {
+            if (!rs.next()) {
+                return new RequestAdmission(false, false, null, null, false, null);
+            }
+            long requestId = rs.getLong("id");
+            RequestDto request = rs.wasNull() ? null : new RequestDto(requestId,
+                    rs.getObject("created", LocalDateTime.class), eventId, userId,
+                    RequestStatus.valueOf(rs.getString("status")));
+            return new RequestAdmission(true, rs.getBoolean("user_found"), rs.getLong("initiator_id"),
+                    rs.getString("state"), rs.getBoolean("capacity_left"), request);
+        });
+    }
+
+    @Override
+    public Optional<RequestDto> cancel(Long userId, Long requestId) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("requestId", requestId);
+        return namedJdbcTemplate.query(CANCEL, params, (rs, rowNum) -> new RequestDto(rs.getLong("id"),
+                rs.getObject("created", LocalDateTime.class), rs.getLong("event_id"), userId,
+                RequestStatus.valueOf(rs.getString("status")))).stream().findFirst();
+    }
+
+    @Override
+    public EventRequestStatusUpdateResult updateStatuses(Long eventId, List<Long> requestIds, boolean confirm) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("eventId", eventId)
+                .addValue("ids", requestIds.toArray(Long[]::new))
+                .addValue("confirm", confirm);
+        EventRequestStatusUpdateResult result = new EventRequestStatusUpdateResult(new ArrayList<>(),
+                new ArrayList<>());
+        namedJdbcTemplate.query(UPDATE_STATUSES, params, rs -> {
+            RequestDto request = new RequestDto(rs.getLong("id"), rs.getObject("created", LocalDateTime.class),
+                    eventId, rs.getLong("requester_id"), RequestStatus.valueOf(rs.getString("status")));
+            if (request.getStatus() == RequestStatus.CONFIRMED) {
+                result.getConfirmedRequests().add(request);
+            } else {
+                result.getRejectedRequests().add(request);
+            }
+        });
+        return result;
+    }
+}
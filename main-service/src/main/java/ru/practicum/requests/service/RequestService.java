@@ -13,7 +13,7 @@ public interface RequestService {
     EventRequestStatusUpdateResult updateRequestsStatus(Long userId, Long eventId,
                                                         EventRequestStatusUpdateRequest statusUpdateRequest) throws NotFoundException;
 
-    RequestDto cancelRequest(Long userId, Long requestId);
+    RequestDto cancelRequest(Long userId, Long requestId) throws NotFoundException;
 
     List<RequestDto> getRequestsByEventOwner(Long userId, Long eventId) throws NotFoundException;
 
@@ -13,22 +13,18 @@ import ru.practicum.exceptions.NotFoundException;
 import ru.practicum.requests.dto.EventRequestStatusUpdateRequest;
 import ru.practicum.requests.dto.EventRequestStatusUpdateResult;
 import ru.practicum.requests.dto.RequestDto;
-import ru.practicum.requests.enums.RequestStatus;
 import ru.practicum.requests.mapper.RequestMapper;
-import ru.practicum.requests.model.Request;
+import ru.practicum.requests.repository.RequestAdmission;
 import ru.practicum.requests.repository.RequestRepository;
 import ru.practicum.users.model.User;
 import ru.practicum.users.repository.UserRepository;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 
 import static ru.practicum.requests.enums.RequestStatus.CONFIRMED;
-import static ru.practicum.requests.enums.RequestStatus.REJECTED;
-import static ru.practicum.requests.enums.RequestStatus.PENDING;
 
 @Slf4j
 @Service
@@ -41,35 +37,29 @@ public class RequestServiceImpl implements RequestService {
     @Transactional
     @Override
     public RequestDto addRequest(Long userId, Long eventId) throws NotFoundException {
-        Event event = eventRepository.findById(eventId)
-                .orElseThrow(() -> new NotFoundException("Event with id=" + eventId + " was not found"));
-        User user = getUser(userId);
-        if (requestRepository.existsByRequesterIdAndEventId(userId, eventId)) {
-            throw new ForbiddenException("Request is already exist.");
+        RequestAdmission admission = requestRepository.admit(userId, eventId, LocalDateTime.now());
+        if (!admission.eventFound()) {
+            throw new NotFoundException("Event with id=" + eventId + " was not found");
+        }
+        if (!admission.userFound()) {
+            throw new NotFoundException("User with id=" + userId + " was not found");
         }
-        if (userId.equals(event.getInitiator().getId())) {
+        if (userId.equals(admission.initiatorId())) {
             throw new ForbiddenException("Initiator can't send request to his own event.");
         }
-        if (!event.getState().equals(State.PUBLISHED)) {
+        if (!State.PUBLISHED.name().equals(admission.state())) {
             throw new ForbiddenException("Participation is possible only in published event.");
         }
-        if (event.getParticipantLimit() != 0 && event.getParticipantLimit() <=
-                requestRepository.countByEventIdAndStatus(eventId, CONFIRMED)) {
+        if (!admission.capacityLeft()) {
             throw new ForbiddenException("Participant limit has been reached.");
         }
-        Request request = new Request();
-        request.setCreated(LocalDateTime.now());
-        request.setEvent(event);
-        request.setRequester(user);
-
-        if (event.getRequestModeration() && event.getParticipantLimit() != 0) {
-            request.setStatus(PENDING);
-        } else {
-            request.setStatus(CONFIRMED);
+        // thrown inside the transaction, so a place taken for the duplicate is given back on rollback
+        if (admission.request() == null) {
+            throw new ForbiddenException("Request is already exist.");
         }
         log.info("Запрос POST / /users/{userId}/requests /, addRequest добавление запроса от пользователя {} на участие в событие {}",
                 userId, eventId);
-        return RequestMapper.toRequestDto(requestRepository.save(request));
+        return admission.request();
     }
 
     @Transactional
@@ -83,42 +73,23 @@ public class RequestServiceImpl implements RequestService {
         if (!event.getInitiator().equals(initiator)) {
             throw new ValidationException("User isn't initiator.");
         }
-        long confirmedRequests = requestRepository.countByEventIdAndStatus(eventId, CONFIRMED);
-        if (event.getParticipantLimit() > 0 && event.getParticipantLimit() <= confirmedRequests) {
+        if (event.getParticipantLimit() > 0 && event.getParticipantLimit() <= event.getConfirmedRequests()) {
             throw new ForbiddenException("The participant limit has been reached.");
         }
-        List<RequestDto> confirmed = new ArrayList<>();
-        List<RequestDto> rejected = new ArrayList<>();
-        List<Request> requests = requestRepository.findAllByEventIdAndIdInAndStatus(eventId,
-                statusUpdateRequest.getRequestIds(), PENDING);
-        for (int i = 0; i < requests.size(); i++) {
-            Request request = requests.get(i);
-            if (statusUpdateRequest.getStatus() == REJECTED) {
-                request.setStatus(REJECTED);
-                rejected.add(RequestMapper.toRequestDto(request));
-            }
-            if (statusUpdateRequest.getStatus() == CONFIRMED && event.getParticipantLimit() > 0 &&
-                    (confirmedRequests + i) < event.getParticipantLimit()) {
-                request.setStatus(CONFIRMED);
-                confirmed.add(RequestMapper.toRequestDto(request));
-            } else {
-                request.setStatus(REJECTED);
-                rejected.add(RequestMapper.toRequestDto(request));
-            }
-        }
         log.info("Запрос PATCH / /users/{userId}/events/{eventId}/requests /, " +
                 "updateRequestsStatus изменение статуса заявок на участие в событие");
-        return new EventRequestStatusUpdateResult(confirmed, rejected);
+        return requestRepository.updateStatuses(eventId, statusUpdateRequest.getRequestIds(),
+                statusUpdateRequest.getStatus() == CONFIRMED);
     }
 
     @Transactional
     @Override
-    public RequestDto cancelRequest(Long userId, Long requestId) {
-        Request request = requestRepository.findByIdAndRequesterId(requestId, userId);
-        request.setStatus(RequestStatus.CANCELED);
+    public RequestDto cancelRequest(Long userId, Long requestId) throws NotFoundException {
+        RequestDto request = requestRepository.cancel(userId, requestId).orElseThrow(() ->
+                new NotFoundException("Request with id=" + requestId + " was not found"));
         log.info("Запрос PATCH / /users/{userId}/requests/{requestId}/cancel /, cancelRequest отмена своего завпроса, пользователь {}," +
                 " на участие в событие", userId);
-        return RequestMapper.toRequestDto(requestRepository.save(request));
+        return request;
     }
 
     @Override
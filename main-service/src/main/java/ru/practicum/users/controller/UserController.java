@@ -6,6 +6,7 @@ import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.exceptions.NotFoundException;
@@ -30,10 +31,11 @@ public class UserController {
     }
 
     @GetMapping
-    public List<UserDto> getUsers(@RequestParam(value = "ids", required = false) List<Long> ids,
+    public ResponseEntity<List<UserDto>> getUsers(@RequestParam(value = "ids", required = false) List<Long> ids,
                                   @RequestParam(value = "from", defaultValue = "0") @PositiveOrZero Integer from,
+                                  @RequestParam(required = false) String after,
                                   @RequestParam(value = "size", defaultValue = "10") @Positive Integer size) {
-        return userService.getUsers(ids, from, size);
+        return userService.getUsers(ids, from, after, size).toResponse();
     }
 
     @DeleteMapping("/{userId}")
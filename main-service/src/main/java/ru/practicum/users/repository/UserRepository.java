@@ -1,5 +1,6 @@
 package ru.practicum.users.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
@@ -9,5 +10,11 @@ import java.util.List;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    List<User> findAllBy(Pageable pageable);
+
     List<User> findAllByIdIn(List<Long> userIds, Pageable pageable);
+
+    List<User> findAllByIdGreaterThanOrderById(Long afterId, Limit limit);
+
+    List<User> findAllByIdInAndIdGreaterThanOrderById(List<Long> userIds, Long afterId, Limit limit);
 }
@@ -3,13 +3,14 @@ package ru.practicum.users.service;
 import ru.practicum.users.dto.UserDto;
 import ru.practicum.users.dto.UserNewDto;
 import ru.practicum.exceptions.NotFoundException;
+import ru.practicum.pagination.CursorPage;
 
 import java.util.List;
 
 public interface UserService {
     UserDto addUser(UserNewDto userNewDto);
 
-    List<UserDto> getUsers(List<Long> userIds, Integer from, Integer size);
+    CursorPage<UserDto> getUsers(List<Long> userIds, Integer from, String after, Integer size);
 
     void deleteUser(Long userId) throws NotFoundException;
 }
@@ -2,18 +2,22 @@ package ru.practicum.users.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.exceptions.NotFoundException;
+import ru.practicum.pagination.CursorPage;
+import ru.practicum.pagination.OffsetPageRequest;
+import ru.practicum.pagination.PageCursor;
 import ru.practicum.users.dto.UserDto;
 import ru.practicum.users.dto.UserNewDto;
 import ru.practicum.users.mapper.UserMapper;
+import ru.practicum.users.model.User;
 import ru.practicum.users.repository.UserRepository;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -30,17 +34,22 @@ public class UserServiceImpl implements UserService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<UserDto> getUsers(List<Long> userIds, Integer from, Integer size) {
-        Pageable pageable = PageRequest.of(from / size, size);
+    public CursorPage<UserDto> getUsers(List<Long> userIds, Integer from, String after, Integer size) {
+        Pageable pageable = OffsetPageRequest.of(from, size, Sort.by("id"));
+        Long afterId = after != null ? PageCursor.decode(after).getId() : null;
+        List<User> users;
         if (userIds == null) {
             log.info("getUsers получили информацию обоо всех пользователях");
-            return userRepository.findAll(pageable).map(UserMapper::toUserDto).getContent();
+            users = afterId != null
+                    ? userRepository.findAllByIdGreaterThanOrderById(afterId, Limit.of(size))
+                    : userRepository.findAllBy(pageable);
         } else {
             log.info("getUsers получение информации о пользователях {}", userIds);
-            return userRepository.findAllByIdIn(userIds, pageable).stream()
-                    .map(UserMapper::toUserDto)
-                    .collect(Collectors.toList());
+            users = afterId != null
+                    ? userRepository.findAllByIdInAndIdGreaterThanOrderById(userIds, afterId, Limit.of(size))
+                    : userRepository.findAllByIdIn(userIds, pageable);
         }
+        return CursorPage.of(users, size, UserMapper::toUserDto, user -> PageCursor.ofId(user.getId()));
     }
 
     @Override
@@ -38,9 +38,24 @@ CREATE TABLE IF NOT EXISTS events(
     published_on       TIMESTAMP,
     request_moderation BOOLEAN,
     state              VARCHAR(10),
-    title              VARCHAR(120) NOT NULL
+    title              VARCHAR(120) NOT NULL,
+    views              BIGINT NOT NULL DEFAULT 0,
+    confirmed_requests BIGINT NOT NULL DEFAULT 0
 );
 
+CREATE INDEX IF NOT EXISTS events_state_views_idx ON events (state, views DESC, id);
+-- seek pagination: each list is ordered by its sort key and then id
+CREATE INDEX IF NOT EXISTS events_state_event_date_idx ON events (state, event_date, id);
+CREATE INDEX IF NOT EXISTS events_initiator_idx ON events (initiator_id, id);
+
+-- text=... in public search: full-text mode matches this expression, substring mode uses the trigram indexes
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS events_search_idx ON events
+    USING GIN (to_tsvector('simple', coalesce(annotation, '') || ' ' || coalesce(description, '')));
+CREATE INDEX IF NOT EXISTS events_annotation_trgm_idx ON events USING GIN (lower(annotation) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS events_description_trgm_idx ON events USING GIN (lower(description) gin_trgm_ops);
+
 CREATE TABLE IF NOT EXISTS compilations(
     id     BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     pinned BOOLEAN,
@@ -58,7 +73,8 @@ CREATE TABLE IF NOT EXISTS requests(
     created      TIMESTAMP,
     event_id     BIGINT REFERENCES events(id),
     requester_id BIGINT REFERENCES users(id),
-    status       VARCHAR(50)
+    status       VARCHAR(50),
+    CONSTRAINT requests_requester_event_key UNIQUE (requester_id, event_id)
 );
 
 CREATE TABLE IF NOT EXISTS comments (
@@ -69,4 +85,6 @@ CREATE TABLE IF NOT EXISTS comments (
     created   TIMESTAMP NOT NULL,
     edited    TIMESTAMP,
     confirmed_requests BIGINT
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS comments_event_idx ON comments (event_id, id);
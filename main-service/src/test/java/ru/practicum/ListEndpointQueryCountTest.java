@@ -0,0 +1,209 @@
+package ru.practicum;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.categories.model.Category;
+import ru.practicum.categories.repository.CategoryRepository;
+import ru.practicum.comments.model.Comment;
+import ru.practicum.comments.repository.CommentRepository;
+import ru.practicum.compilations.model.Compilation;
+import ru.practicum.compilations.repository.CompilationRepository;
+import ru.practicum.events.enums.State;
+import ru.practicum.events.model.Event;
+import ru.practicum.events.repository.EventRepository;
+import ru.practicum.locations.model.Location;
+import ru.practicum.locations.repository.LocationRepository;
+import ru.practicum.requests.enums.RequestStatus;
+import ru.practicum.requests.model.Request;
+import ru.practicum.requests.repository.RequestRepository;
+import ru.practicum.users.model.User;
+import ru.practicum.users.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// every row of a page has its own category, initiator and location, so a lazy association
+// read per row shows up as statements growing with the page size
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestPropertySource(properties = {
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.url=jdbc:h2:mem:ewmdb;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.sql.init.mode=never",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.show_sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "events.views-sync.initial-delay-ms=3600000",
+        "events.confirmed-requests.reconcile-cron=-"
+})
+class ListEndpointQueryCountTest {
+    private static final int PAGE = 10;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CategoryRepository categoryRepository;
+    @Autowired
+    private LocationRepository locationRepository;
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private RequestRepository requestRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private CompilationRepository compilationRepository;
+
+    private Statistics statistics;
+    private User owner;
+    private User guest;
+    private Event ownerEvent;
+
+    @BeforeAll
+    void seed() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        LocalDateTime now = LocalDateTime.now();
+        List<User> users = new ArrayList<>();
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i <= PAGE * 2; i++) {
+            users.add(userRepository.save(new User("user" + i, "user" + i + "@mail.ru")));
+        }
+        owner = users.get(0);
+        guest = users.get(PAGE * 2);
+        for (int i = 0; i <= PAGE * 2; i++) {
+            User initiator = i <= PAGE ? owner : users.get(i);
+            events.add(eventRepository.save(Event.builder()
+                    .annotation("annotation of event " + i)
+                    .description("description of event " + i)
+                    .title("event " + i)
+                    .category(categoryRepository.save(new Category("category" + i)))
+                    .location(locationRepository.save(new Location(55.75f + i, 37.62f + i)))
+                    .initiator(initiator)
+                    .createdOn(now.minusDays(2))
+                    .publishedOn(now.minusDays(1))
+                    .eventDate(now.plusDays(i + 1))
+                    .paid(false)
+                    .participantLimit(0)
+                    .requestModeration(false)
+                    .state(State.PUBLISHED)
+                    .build()));
+        }
+        ownerEvent = events.get(0);
+        for (int i = 1; i < PAGE * 2; i++) {
+            requestRepository.save(new Request(null, now, ownerEvent, users.get(i), RequestStatus.PENDING));
+            commentRepository.save(new Comment(null, "comment " + i, users.get(i), ownerEvent, now, null, 0L));
+        }
+        for (int i = 1; i <= PAGE * 2; i++) {
+            requestRepository.save(new Request(null, now, events.get(i), guest, RequestStatus.PENDING));
+            commentRepository.save(new Comment(null, "comment " + i, guest, events.get(i), now, null, 0L));
+        }
+        for (int i = 0; i < PAGE; i++) {
+            Compilation compilation = new Compilation("compilation " + i, false);
+            compilation.setEvents(new HashSet<>(events.subList(i, i + 3)));
+            compilationRepository.save(compilation);
+        }
+        jdbcTemplate.update("UPDATE events SET views = 0, confirmed_requests = 0");
+    }
+
+    @BeforeEach
+    void resetStatistics() {
+        statistics.clear();
+    }
+
+    @Test
+    void publicEvents() throws Exception {
+        mockMvc.perform(get("/events").param("size", String.valueOf(PAGE)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(PAGE)));
+        assertStatementsAtMost(2);
+    }
+
+    @Test
+    void adminEvents() throws Exception {
+        mockMvc.perform(get("/admin/events").param("size", String.valueOf(PAGE)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(PAGE)));
+        assertStatementsAtMost(2);
+    }
+
+    @Test
+    void ownerEvents() throws Exception {
+        mockMvc.perform(get("/users/{userId}/events", owner.getId()).param("size", String.valueOf(PAGE)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(PAGE)));
+        assertStatementsAtMost(2);
+    }
+
+    @Test
+    void ownerEventRequests() throws Exception {
+        mockMvc.perform(get("/users/{userId}/events/{eventId}/requests", owner.getId(), ownerEvent.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(PAGE * 2 - 1)));
+        assertStatementsAtMost(4);
+    }
+
+    @Test
+    void userRequests() throws Exception {
+        mockMvc.perform(get("/users/{userId}/requests", guest.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(PAGE * 2)));
+        assertStatementsAtMost(3);
+    }
+
+    @Test
+    void eventComments() throws Exception {
+        mockMvc.perform(get("/comments/event/{eventId}", ownerEvent.getId()).param("size", String.valueOf(PAGE)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(PAGE)));
+        assertStatementsAtMost(2);
+    }
+
+    @Test
+    void userComments() throws Exception {
+        mockMvc.perform(get("/users/{userId}/comments", guest.getId()).param("size", String.valueOf(PAGE)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(PAGE)));
+        assertStatementsAtMost(2);
+    }
+
+    @Test
+    void compilations() throws Exception {
+        mockMvc.perform(get("/compilations").param("size", String.valueOf(PAGE)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(PAGE)));
+        // compilations, then one batch each for their events, categories and initiators
+        assertStatementsAtMost(4);
+    }
+
+    private void assertStatementsAtMost(long expected) {
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(expected);
+    }
+}
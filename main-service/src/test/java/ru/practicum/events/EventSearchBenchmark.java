@@ -0,0 +1,129 @@
+package ru.practicum.events;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Public event search, text=... in SUBSTRING and FULL_TEXT mode, on a generated table of events.
+ * The statements are the ones Hibernate builds for getEvents, the text conditions as in SearchFunctionContributor.
+ * Words are w<n>z with n = 100000 * random()^3, 52 per event: w0z is in about 2/3 of the events, w100z in 2%,
+ * w90000z in 0.02%. The table is reseeded only when it does not hold `rows` events, which takes minutes.
+ * mvn -pl main-service -am test -DskipTests -Dbench=main
+ *     -Djmh.args="EventSearchBenchmark -p url=jdbc:postgresql://localhost:5432/ewm_bench"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class EventSearchBenchmark {
+    private static final String SELECT = "SELECT e.id, e.annotation, c.id, c.name, e.confirmed_requests, " +
+            "e.event_date, u.id, u.name, e.paid, e.title, e.views, e.published_on " +
+            "FROM events e JOIN categories c ON c.id = e.category_id JOIN users u ON u.id = e.initiator_id WHERE ";
+    private static final String SUBSTRING = "(lower(e.annotation) LIKE ? OR lower(e.description) LIKE ?)";
+    private static final String DOCUMENT = "to_tsvector('simple', coalesce(e.annotation, '') || ' ' || " +
+            "coalesce(e.description, ''))";
+    private static final String FULL_TEXT = "(" + DOCUMENT + " @@ plainto_tsquery('simple', ?))";
+    private static final String FILTER = " AND e.event_date > ? AND e.state = 'PUBLISHED' ";
+    private static final String BY_DATE = "ORDER BY e.event_date, e.id OFFSET 0 ROWS FETCH FIRST 10 ROWS ONLY";
+    private static final String BY_RELEVANCE = "ORDER BY ts_rank(" + DOCUMENT + ", plainto_tsquery('simple', ?)) " +
+            "DESC, e.id OFFSET 0 ROWS FETCH FIRST 10 ROWS ONLY";
+    private static final String WORDS = "(SELECT string_agg('w' || floor(100000 * random() ^ 3)::int || 'z', ' ') " +
+            "FROM generate_series(1, %d) WHERE g > 0)";
+
+    @Param("jdbc:postgresql://localhost:5432/ewm_bench")
+    private String url;
+    @Param("ewmdb")
+    private String user;
+    @Param("ewmdb")
+    private String password;
+    @Param("1000000")
+    private int rows;
+    @Param({"w0z", "w100z", "w90000z"})
+    private String text;
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(user);
+        dataSource.setPassword(password);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        if (seeded() != rows) {
+            seed();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> substring() {
+        String pattern = "%" + text.toLowerCase() + "%";
+        return jdbcTemplate.queryForList(SELECT + SUBSTRING + FILTER + BY_DATE, pattern, pattern, now());
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> fullText() {
+        return jdbcTemplate.queryForList(SELECT + FULL_TEXT + FILTER + BY_DATE, text, now());
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> fullTextByRelevance() {
+        return jdbcTemplate.queryForList(SELECT + FULL_TEXT + FILTER + BY_RELEVANCE, text, now(), text);
+    }
+
+    private long seeded() {
+        try {
+            Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM events", Long.class);
+            return count != null ? count : 0;
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private void seed() {
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate.update("INSERT INTO users (name, email) VALUES ('bench', 'bench@mail.ru')");
+        jdbcTemplate.update("INSERT INTO categories (name) VALUES ('bench')");
+        jdbcTemplate.update("INSERT INTO locations (lat, lon) VALUES (55.75, 37.62)");
+        jdbcTemplate.update("INSERT INTO events (annotation, category_id, created_on, description, event_date, " +
+                "initiator_id, location_id, paid, participant_limit, published_on, request_moderation, state, title) " +
+                "SELECT 'event ' || g || ' ' || " + WORDS.formatted(12) + ", 1, now() - interval '1 year', " +
+                WORDS.formatted(40) + ", now() + (random() * 730 - 365) * interval '1 day', 1, 1, g % 2 = 0, 0, " +
+                "now() - interval '1 year', false, CASE WHEN g % 10 = 0 THEN 'PENDING' ELSE 'PUBLISHED' END, " +
+                "'event ' || g FROM generate_series(1, ?) AS g", rows);
+        jdbcTemplate.execute("ANALYZE events");
+    }
+
+    private static Timestamp now() {
+        return Timestamp.valueOf(LocalDateTime.now());
+    }
+}
@@ -0,0 +1,155 @@
+package ru.practicum.requests.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Hundreds of requesters joining one event at once, every iteration on a new event. admit is the single
+ * statement addRequest runs now, legacy the read-check-write sequence it ran before, statement by statement.
+ * After each iteration the confirmed requests are checked against the counter and participant_limit:
+ * admit fails the run on any mismatch, legacy only prints it.
+ * mvn -pl main-service -am test -DskipTests -Dbench=main
+ *     -Djmh.args="RequestAdmissionBenchmark -p url=jdbc:postgresql://localhost:5432/ewm_requests_bench"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Threads(200)
+@Fork(1)
+public class RequestAdmissionBenchmark {
+    private static final long INITIATOR_ID = 1;
+
+    @Param("jdbc:postgresql://localhost:5432/ewm_requests_bench")
+    private String url;
+    @Param("ewmdb")
+    private String user;
+    @Param("ewmdb")
+    private String password;
+    @Param("10")
+    private int poolSize;
+    @Param({"0", "1000"})
+    private int participantLimit;
+    @Param("200000")
+    private int requesters;
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private RequestJdbcRepository repository;
+    private TransactionTemplate transactionTemplate;
+    private final AtomicLong requests = new AtomicLong();
+    private volatile long eventId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(user);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(poolSize);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        repository = new RequestJdbcRepositoryImpl(new NamedParameterJdbcTemplate(dataSource));
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate.update("INSERT INTO users (name, email) " +
+                "SELECT 'user' || g, 'user' || g || '@mail.ru' FROM generate_series(1, ?) AS g", requesters + 1);
+        jdbcTemplate.update("INSERT INTO categories (name) VALUES ('bench')");
+        jdbcTemplate.update("INSERT INTO locations (lat, lon) VALUES (55.75, 37.62)");
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Setup(Level.Iteration)
+    public void newEvent() {
+        requests.set(0);
+        eventId = jdbcTemplate.queryForObject("INSERT INTO events (annotation, category_id, created_on, " +
+                "description, event_date, initiator_id, location_id, paid, participant_limit, published_on, " +
+                "request_moderation, state, title) VALUES ('admission ' || clock_timestamp(), 1, now(), 'bench', " +
+                "now() + interval '1 month', ?, 1, false, ?, now(), false, 'PUBLISHED', 'bench') RETURNING id",
+                Long.class, INITIATOR_ID, participantLimit);
+    }
+
+    @TearDown(Level.Iteration)
+    public void check(BenchmarkParams params) {
+        Map<String, Object> state = jdbcTemplate.queryForMap("SELECT e.confirmed_requests AS counter, " +
+                "(SELECT count(*) FROM requests r WHERE r.event_id = e.id AND r.status = 'CONFIRMED') AS confirmed " +
+                "FROM events e WHERE e.id = ?", eventId);
+        long counter = ((Number) state.get("counter")).longValue();
+        long confirmed = ((Number) state.get("confirmed")).longValue();
+        boolean consistent = counter == confirmed && (participantLimit == 0 || confirmed <= participantLimit);
+        System.out.printf("%n%s: %d requests, %d confirmed, counter %d, limit %d%s%n", params.getBenchmark(),
+                requests.get(), confirmed, counter, participantLimit, consistent ? "" : " - OVERSUBSCRIBED");
+        if (!consistent && params.getBenchmark().endsWith(".admit")) {
+            throw new IllegalStateException("Admission oversubscribed event " + eventId);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public RequestAdmission admit() {
+        long userId = nextRequester();
+        return transactionTemplate.execute(status -> {
+            RequestAdmission admission = repository.admit(userId, eventId, LocalDateTime.now());
+            if (admission.request() == null) {
+                status.setRollbackOnly();
+            }
+            return admission;
+        });
+    }
+
+    @Benchmark
+    public Boolean legacy() {
+        long userId = nextRequester();
+        return transactionTemplate.execute(status -> {
+            Map<String, Object> event = jdbcTemplate.queryForMap("SELECT id, initiator_id, state, " +
+                    "participant_limit, confirmed_requests, request_moderation FROM events WHERE id = ?", eventId);
+            jdbcTemplate.queryForMap("SELECT id, name, email FROM users WHERE id = ?", userId);
+            Boolean exists = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM requests " +
+                    "WHERE requester_id = ? AND event_id = ?)", Boolean.class, userId, eventId);
+            int limit = ((Number) event.get("participant_limit")).intValue();
+            long confirmed = ((Number) event.get("confirmed_requests")).longValue();
+            if (Boolean.TRUE.equals(exists) || limit != 0 && limit <= confirmed) {
+                return false;
+            }
+            jdbcTemplate.update("UPDATE events SET confirmed_requests = confirmed_requests + 1 WHERE id = ?",
+                    eventId);
+            jdbcTemplate.update("INSERT INTO requests (created, event_id, requester_id, status) " +
+                    "VALUES (?, ?, ?, 'CONFIRMED')", Timestamp.valueOf(LocalDateTime.now()), eventId, userId);
+            return true;
+        });
+    }
+
+    private long nextRequester() {
+        return INITIATOR_ID + 1 + requests.getAndIncrement() % requesters;
+    }
+}
@@ -0,0 +1,123 @@
+package ru.practicum.stats;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Count-based circuit breaker. While CLOSED it keeps the outcomes of the last `windowSize` calls and opens once at
+ * least `minimumCalls` were recorded and the failure share reaches `failureRateThreshold` percent. OPEN rejects
+ * calls for `openDurationMs`, then HALF_OPEN lets `halfOpenCalls` probes through: all of them succeeding closes
+ * the breaker, any failure opens it again.
+ */
+@Slf4j
+class CircuitBreaker {
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureRateThreshold;
+    private final int minimumCalls;
+    private final int halfOpenCalls;
+    private final long openDurationNanos;
+    private final boolean[] failed;
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong transitions = new AtomicLong();
+    private int next;
+    private int recorded;
+    private int failures;
+    private volatile State state = State.CLOSED;
+    private long openedAt;
+    private int probesLeft;
+    private int probesSucceeded;
+
+    CircuitBreaker(int failureRateThreshold, int windowSize, int minimumCalls, long openDurationMs, int halfOpenCalls) {
+        this.failureRateThreshold = failureRateThreshold;
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.halfOpenCalls = halfOpenCalls;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+        this.failed = new boolean[windowSize];
+    }
+
+    State state() {
+        return state;
+    }
+
+    long rejectedCount() {
+        return rejected.get();
+    }
+
+    long transitionCount() {
+        return transitions.get();
+    }
+
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openDurationNanos) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesLeft == 0) {
+                rejected.incrementAndGet();
+                return false;
+            }
+            probesLeft--;
+        }
+        return true;
+    }
+
+    synchronized void onResult(boolean success) {
+        switch (state) {
+            case CLOSED -> {
+                record(success);
+                if (recorded >= minimumCalls && failures * 100 >= failureRateThreshold * recorded) {
+                    transition(State.OPEN);
+                }
+            }
+            case HALF_OPEN -> {
+                if (!success) {
+                    transition(State.OPEN);
+                } else if (++probesSucceeded >= halfOpenCalls) {
+                    transition(State.CLOSED);
+                }
+            }
+            case OPEN -> {
+                // late answer to a call that started before the breaker opened
+            }
+        }
+    }
+
+    private void record(boolean success) {
+        if (recorded == failed.length && failed[next]) {
+            failures--;
+        }
+        failed[next] = !success;
+        if (!success) {
+            failures++;
+        }
+        next = (next + 1) % failed.length;
+        recorded = Math.min(recorded + 1, failed.length);
+    }
+
+    private void transition(State to) {
+        log.warn("Предохранитель сервера статистики: {} -> {}", state, to);
+        state = to;
+        transitions.incrementAndGet();
+        switch (to) {
+            case OPEN -> openedAt = System.nanoTime();
+            case HALF_OPEN -> {
+                probesLeft = halfOpenCalls;
+                probesSucceeded = 0;
+            }
+            case CLOSED -> {
+                Arrays.fill(failed, false);
+                next = 0;
+                recorded = 0;
+                failures = 0;
+            }
+        }
+    }
+}
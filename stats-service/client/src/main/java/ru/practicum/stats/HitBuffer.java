@@ -0,0 +1,106 @@
+package ru.practicum.stats;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.EndpointHitDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Bounded hit queue shipped to the stats server in batches: when a batch fills up or the flush interval elapses.
+@Slf4j
+class HitBuffer {
+    private final BlockingQueue<EndpointHitDto> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Consumer<List<EndpointHitDto>> sender;
+    private final AtomicLong dropped = new AtomicLong();
+    // hits taken off the queue by the flusher and not yet sent
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    HitBuffer(int capacity, int batchSize, long flushIntervalMs, Consumer<List<EndpointHitDto>> sender) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.sender = sender;
+        this.flusher = new Thread(this::run, "stats-hit-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    boolean offer(EndpointHitDto hit) {
+        if (running && queue.offer(hit)) {
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    int size() {
+        return queue.size();
+    }
+
+    long droppedCount() {
+        return dropped.get();
+    }
+
+    void close(long timeoutMs) {
+        running = false;
+        try {
+            flusher.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flusher.isAlive()) {
+            flusher.interrupt();
+            // a batch the interrupted send still delivers is counted as lost as well
+            long lost = queue.size() + inFlight.getAndSet(0);
+            dropped.addAndGet(lost);
+            log.warn("Буфер хитов не успел выгрузиться за {} мс, потеряно {}", timeoutMs, lost);
+        }
+    }
+
+    private void run() {
+        List<EndpointHitDto> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            long deadline = System.nanoTime() + flushIntervalNanos;
+            try {
+                while (batch.size() < batchSize) {
+                    long wait = deadline - System.nanoTime();
+                    EndpointHitDto hit = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+                    if (hit == null) {
+                        break;
+                    }
+                    batch.add(hit);
+                    queue.drainTo(batch, batchSize - batch.size());
+                    inFlight.set(batch.size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<EndpointHitDto> batch) {
+        try {
+            sender.accept(List.copyOf(batch));
+            inFlight.set(0);
+        } catch (RuntimeException e) {
+            // close() may already have counted this batch
+            dropped.addAndGet(inFlight.getAndSet(0));
+            log.warn("Не удалось отправить {} хитов на сервер статистики: {}", batch.size(), e.getMessage());
+        }
+    }
+}
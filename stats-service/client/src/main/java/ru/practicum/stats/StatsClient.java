@@ -1,66 +1,349 @@
 package ru.practicum.stats;
 
-import org.apache.hc.client5.http.classic.HttpClient;
-import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.datatype.jsr310.deser.LocalDateTimeDeserializer;
+import com.fasterxml.jackson.datatype.jsr310.ser.LocalDateTimeSerializer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpStatusCodeException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 import ru.practicum.EndpointHitDto;
+import ru.practicum.StatsQueryDto;
+import ru.practicum.ViewStatsDto;
 
+import java.io.IOException;
+import java.net.URI;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 
 @Service
-public class StatsClient {
+public class StatsClient implements InitializingBean, DisposableBean, MeterBinder {
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String EVENT_URI_PREFIX = "/events/";
+
     @Value("${client.url}")
     private String serverUrl;
-    private final RestTemplate rest;
+    @Value("${client.buffer.enabled:true}")
+    private boolean bufferEnabled;
+    @Value("${client.buffer.capacity:10000}")
+    private int bufferCapacity;
+    @Value("${client.buffer.batch-size:500}")
+    private int bufferBatchSize;
+    @Value("${client.buffer.flush-interval-ms:1000}")
+    private long bufferFlushIntervalMs;
+    @Value("${client.buffer.shutdown-timeout-ms:10000}")
+    private long bufferShutdownTimeoutMs;
+    @Value("${client.stats.post-threshold:50}")
+    private int postThreshold;
+    @Value("${client.http.max-total:50}")
+    private int maxTotal;
+    @Value("${client.http.max-per-route:50}")
+    private int maxPerRoute;
+    @Value("${client.http.connect-timeout-ms:1000}")
+    private long connectTimeoutMs;
+    @Value("${client.http.response-timeout-ms:3000}")
+    private long responseTimeoutMs;
+    @Value("${client.http.pool-timeout-ms:500}")
+    private long poolTimeoutMs;
+    @Value("${client.http.idle-timeout-ms:30000}")
+    private long idleTimeoutMs;
+    @Value("${client.breaker.failure-rate-threshold:50}")
+    private int breakerFailureRateThreshold;
+    @Value("${client.breaker.window-size:20}")
+    private int breakerWindowSize;
+    @Value("${client.breaker.minimum-calls:10}")
+    private int breakerMinimumCalls;
+    @Value("${client.breaker.open-duration-ms:10000}")
+    private long breakerOpenDurationMs;
+    @Value("${client.breaker.half-open-calls:3}")
+    private int breakerHalfOpenCalls;
+    private final ObjectMapper mapper;
+    private final ObjectReader statsReader;
+    private CloseableHttpAsyncClient http;
+    private HitBuffer buffer;
+    private CircuitBreaker breaker;
+    private volatile Timer flushTimer;
 
     public StatsClient() {
-        this.rest = new RestTemplate();
-        HttpClient httpClient = HttpClientBuilder.create().build();
-        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
-        rest.setRequestFactory(requestFactory);
+        JavaTimeModule timeModule = new JavaTimeModule();
+        timeModule.addSerializer(LocalDateTime.class, new LocalDateTimeSerializer(DATE_TIME_FORMAT));
+        timeModule.addDeserializer(LocalDateTime.class, new LocalDateTimeDeserializer(DATE_TIME_FORMAT));
+        this.mapper = new ObjectMapper().registerModule(timeModule);
+        this.statsReader = mapper.readerForListOf(ViewStatsDto.class);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxTotal)
+                .setMaxConnPerRoute(maxPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(responseTimeoutMs))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        http = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(poolTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(responseTimeoutMs))
+                        .build())
+                .evictIdleConnections(TimeValue.ofMilliseconds(idleTimeoutMs))
+                .build();
+        http.start();
+        breaker = new CircuitBreaker(breakerFailureRateThreshold, breakerWindowSize, breakerMinimumCalls,
+                breakerOpenDurationMs, breakerHalfOpenCalls);
+        if (bufferEnabled) {
+            buffer = new HitBuffer(bufferCapacity, bufferBatchSize, bufferFlushIntervalMs, this::flush);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (buffer != null) {
+            buffer.close(bufferShutdownTimeoutMs);
+        }
+        http.close(CloseMode.GRACEFUL);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            Gauge.builder("stats.client.breaker.state", breaker, b -> b.state() == state ? 1 : 0)
+                    .description("1 for the current state of the stats server circuit breaker")
+                    .tag("state", state.name().toLowerCase())
+                    .register(registry);
+        }
+        FunctionCounter.builder("stats.client.breaker.rejected", breaker, CircuitBreaker::rejectedCount)
+                .description("Calls to the stats server rejected while the circuit breaker was open")
+                .register(registry);
+        FunctionCounter.builder("stats.client.breaker.transitions", breaker, CircuitBreaker::transitionCount)
+                .description("State changes of the stats server circuit breaker")
+                .register(registry);
+        if (buffer == null) {
+            return;
+        }
+        Gauge.builder("stats.client.buffer.size", buffer, HitBuffer::size)
+                .description("Hits waiting to be sent to the stats server")
+                .register(registry);
+        FunctionCounter.builder("stats.client.buffer.dropped", buffer, HitBuffer::droppedCount)
+                .description("Hits dropped because the buffer was full or the batch could not be sent")
+                .register(registry);
+        flushTimer = Timer.builder("stats.client.buffer.flush")
+                .description("Time to send one batch of hits to the stats server")
+                .register(registry);
     }
 
     public ResponseEntity<Object> save(EndpointHitDto hit) {
-        ResponseEntity<Object> response;
         try {
-            response = rest.postForEntity(serverUrl + "/hit", hit, Object.class);
-        } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+            saveAsync(hit).join();
+        } catch (CompletionException e) {
+            return toErrorResponse(e);
         }
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
-        if (response.hasBody()) {
-            return responseBuilder.body(response.getBody());
-        }
-        return responseBuilder.build();
+        return buffer != null ? ResponseEntity.accepted().build() : ResponseEntity.status(HttpStatus.CREATED).build();
     }
 
     public ResponseEntity<Object> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique) {
-        StringBuilder url = new StringBuilder(serverUrl + "/stats?");
-        for (String uri : uris) {
-            url.append("&uris=").append(uri);
+        try {
+            return ResponseEntity.ok(getStatsAsync(start, end, uris, unique).join());
+        } catch (CompletionException e) {
+            return toErrorResponse(e);
         }
-        url.append("&unique=").append(unique);
-        url.append("&start=").append(start);
-        url.append("&end=").append(end);
+    }
 
-        ResponseEntity<Object> response;
+    public Map<Long, Long> viewsByEventId(Collection<Long> ids, LocalDateTime start, LocalDateTime end,
+                                          boolean unique) {
+        return viewsByEventIdAsync(ids, start, end, unique).join();
+    }
+
+    // every requested id is present in the result, events nobody has viewed map to 0
+    public CompletableFuture<Map<Long, Long>> viewsByEventIdAsync(Collection<Long> ids, LocalDateTime start,
+                                                                  LocalDateTime end, boolean unique) {
+        if (ids.isEmpty()) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        List<String> uris = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            uris.add(EVENT_URI_PREFIX + id);
+        }
+        return getStatsAsync(start, end, uris, unique).thenApply(stats -> toViews(ids, stats));
+    }
+
+    // ids of events whose page got at least one hit in the range, whatever the app that recorded it
+    public CompletableFuture<Set<Long>> viewedEventIdsAsync(LocalDateTime start, LocalDateTime end) {
+        return getStatsAsync(start, end, null, false).thenApply(stats -> {
+            Set<Long> ids = new HashSet<>();
+            for (ViewStatsDto dto : stats) {
+                Long id = eventId(dto.getUri());
+                if (id != null) {
+                    ids.add(id);
+                }
+            }
+            return ids;
+        });
+    }
+
+    // with buffering on, completes as soon as the hit is queued and fails when the buffer is full
+    public CompletableFuture<Void> saveAsync(EndpointHitDto hit) {
+        if (buffer != null) {
+            return buffer.offer(hit)
+                    ? CompletableFuture.completedFuture(null)
+                    : CompletableFuture.failedFuture(new RejectedExecutionException("Буфер хитов переполнен"));
+        }
+        return post("/hit", hit).thenApply(response -> null);
+    }
+
+    // long uri lists go in a POST body, a query string with hundreds of them runs into URL length limits
+    public CompletableFuture<List<ViewStatsDto>> getStatsAsync(LocalDateTime start, LocalDateTime end,
+                                                               List<String> uris, Boolean unique) {
+        if (uris != null && uris.size() > postThreshold) {
+            return post("/stats/query", new StatsQueryDto(start, end, uris, unique, false))
+                    .thenApply(this::readStats);
+        }
+        UriComponentsBuilder url = UriComponentsBuilder.fromHttpUrl(serverUrl)
+                .path("/stats")
+                .queryParam("start", start.format(DATE_TIME_FORMAT))
+                .queryParam("end", end.format(DATE_TIME_FORMAT))
+                .queryParam("unique", unique);
+        if (uris != null) {
+            url.queryParam("uris", uris.toArray());
+        }
+        URI uri = url.encode().build().toUri();
+        return execute(SimpleRequestBuilder.get(uri).build()).thenApply(this::readStats);
+    }
+
+    List<ViewStatsDto> readStats(SimpleHttpResponse response) {
+        try {
+            return statsReader.readValue(response.getBodyBytes());
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    static Map<Long, Long> toViews(Collection<Long> ids, List<ViewStatsDto> stats) {
+        Map<Long, Long> views = HashMap.newHashMap(ids.size());
+        for (Long id : ids) {
+            views.put(id, 0L);
+        }
+        for (ViewStatsDto dto : stats) {
+            Long id = eventId(dto.getUri());
+            if (id != null && views.containsKey(id)) {
+                views.merge(id, dto.getHits(), Long::sum);
+            }
+        }
+        return views;
+    }
+
+    private void flush(List<EndpointHitDto> hits) {
+        long startNanos = System.nanoTime();
+        post("/hits/batch", hits).join();
+        Timer timer = flushTimer;
+        if (timer != null) {
+            timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private CompletableFuture<SimpleHttpResponse> post(String path, Object body) {
+        byte[] json;
         try {
-            response = rest.exchange(url.toString(), HttpMethod.GET, null, Object.class);
-        } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+            json = mapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return execute(SimpleRequestBuilder.post(serverUrl + path)
+                .setBody(json, ContentType.APPLICATION_JSON)
+                .build());
+    }
+
+    // 4xx answers mean the server is up and only count as failures of the call, not of the server
+    private CompletableFuture<SimpleHttpResponse> execute(SimpleHttpRequest request) {
+        if (!breaker.tryAcquire()) {
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("Сервер статистики недоступен, предохранитель разомкнут"));
+        }
+        CompletableFuture<SimpleHttpResponse> future = new CompletableFuture<>();
+        http.execute(request, new FutureCallback<>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                breaker.onResult(response.getCode() < 500);
+                if (response.getCode() >= 400) {
+                    future.completeExceptionally(new StatsClientException(response.getCode(), response.getBodyBytes()));
+                } else {
+                    future.complete(response);
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                breaker.onResult(false);
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void cancelled() {
+                breaker.onResult(false);
+                future.cancel(false);
+            }
+        });
+        return future;
+    }
+
+    private static Long eventId(String uri) {
+        if (uri == null || !uri.startsWith(EVENT_URI_PREFIX)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(uri.substring(EVENT_URI_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static ResponseEntity<Object> toErrorResponse(CompletionException e) {
+        if (e.getCause() instanceof StatsClientException error) {
+            return ResponseEntity.status(error.getStatus()).body(error.getBody());
         }
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
-        if (response.hasBody()) {
-            return responseBuilder.body(response.getBody());
+        if (e.getCause() instanceof RejectedExecutionException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         }
-        return responseBuilder.build();
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(String.valueOf(e.getCause()));
     }
-}
\ No newline at end of file
+}
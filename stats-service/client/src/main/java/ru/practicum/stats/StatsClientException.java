@@ -0,0 +1,15 @@
+package ru.practicum.stats;
+
+import lombok.Getter;
+
+@Getter
+public class StatsClientException extends RuntimeException {
+    private final int status;
+    private final byte[] body;
+
+    public StatsClientException(int status, byte[] body) {
+        super("Сервер статистики вернул " + status);
+        this.status = status;
+        this.body = body;
+    }
+}
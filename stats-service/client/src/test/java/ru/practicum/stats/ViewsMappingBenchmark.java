@@ -0,0 +1,74 @@
+package ru.practicum.stats;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.practicum.ViewStatsDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Views of one page of events from a /stats response body, HTTP left out.
+ * legacy is what the event service did before viewsByEventId: the body read as untyped maps, then a new
+ * ObjectMapper and a convertValue of the whole list for every event of the page.
+ * mvn -pl stats-service/client -am test -DskipTests -Dbench=client -Djmh.args="ViewsMappingBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(1)
+public class ViewsMappingBenchmark {
+    @Param({"100", "1000"})
+    private int pageSize;
+
+    private final ObjectMapper restTemplateMapper = new ObjectMapper();
+    private final StatsClient client = new StatsClient();
+    private List<Long> ids;
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws Exception {
+        ids = new ArrayList<>(pageSize);
+        List<ViewStatsDto> stats = new ArrayList<>(pageSize);
+        for (long id = 1; id <= pageSize; id++) {
+            ids.add(id);
+            stats.add(new ViewStatsDto("ewm-main-service", "/events/" + id, id * 7));
+        }
+        body = restTemplateMapper.writeValueAsBytes(stats);
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) throws Exception {
+        Object response = restTemplateMapper.readValue(body, Object.class);
+        for (int i = 0; i < ids.size(); i++) {
+            ObjectMapper mapper = new ObjectMapper();
+            List<ViewStatsDto> statsDto = mapper.convertValue(response, new TypeReference<>() {
+            });
+            blackhole.consume(statsDto.isEmpty() ? 0L : statsDto.getFirst().getHits());
+        }
+    }
+
+    @Benchmark
+    public Map<Long, Long> viewsByEventId() {
+        List<ViewStatsDto> stats = client.readStats(SimpleHttpResponse.create(200, body, ContentType.APPLICATION_JSON));
+        return StatsClient.toViews(ids, stats);
+    }
+}
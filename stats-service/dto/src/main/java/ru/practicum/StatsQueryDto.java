@@ -0,0 +1,27 @@
+package ru.practicum;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StatsQueryDto {
+
+    @NotNull
+    private LocalDateTime start;
+
+    @NotNull
+    private LocalDateTime end;
+
+    private List<String> uris;
+
+    private Boolean unique = false;
+
+    private Boolean approx = false;
+}
@@ -1,28 +1,98 @@
 package ru.practicum.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.EndpointHitDto;
+import ru.practicum.StatsQueryDto;
+import ru.practicum.exception.BadRequestException;
 import ru.practicum.service.StatsService;
 import ru.practicum.ViewStatsDto;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
+@Validated
 @RestController
 @RequestMapping
 @RequiredArgsConstructor
 public class StatsController {
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
     private final StatsService statsService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    @Value("${stats.ingest.ndjson-batch-size:5000}")
+    private int ndjsonBatchSize;
 
     @GetMapping("/stats")
     public List<ViewStatsDto> get(@RequestParam LocalDateTime start,
                                   @RequestParam LocalDateTime end,
                                   @RequestParam(required = false) List<String> uris,
-                                  @RequestParam(defaultValue = "false") Boolean unique) {
-        return statsService.getStats(start, end, uris, unique);
+                                  @RequestParam(defaultValue = "false") Boolean unique,
+                                  @RequestParam(defaultValue = "false") Boolean approx) {
+        return statsService.getStats(start, end, uris, unique, approx);
+    }
+
+    @PostMapping("/stats/query")
+    public List<ViewStatsDto> query(@RequestBody @Valid StatsQueryDto query) {
+        return statsService.getStats(query.getStart(), query.getEnd(), query.getUris(),
+                Boolean.TRUE.equals(query.getUnique()), Boolean.TRUE.equals(query.getApprox()));
+    }
+
+    @GetMapping("/stats/top")
+    public List<ViewStatsDto> getTop(@RequestParam LocalDateTime start,
+                                     @RequestParam LocalDateTime end,
+                                     @RequestParam(defaultValue = "10") @Positive Integer k) {
+        return statsService.getTop(start, end, k);
+    }
+
+    @GetMapping("/stats/stream")
+    public ResponseEntity<StreamingResponseBody> stream(@RequestParam LocalDateTime start,
+                                                        @RequestParam LocalDateTime end,
+                                                        @RequestParam(required = false) List<String> uris,
+                                                        @RequestParam(defaultValue = "false") Boolean unique,
+                                                        @RequestParam(required = false) @Positive Integer limit) {
+        // checked before the body starts, afterwards the status can no longer be changed
+        if (start.isAfter(end)) {
+            throw new BadRequestException("Время указанно не верно");
+        }
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+                statsService.streamStats(start, end, uris, unique, limit, row -> {
+                    try {
+                        writer.write(row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON))
+                .body(body);
     }
 
     @PostMapping("/hit")
@@ -30,4 +100,54 @@ public class StatsController {
     public EndpointHitDto save(@RequestBody @Valid EndpointHitDto hitDto) {
         return statsService.save(hitDto);
     }
-}
\ No newline at end of file
+
+    @PostMapping(value = "/hits/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public void saveAll(@RequestBody List<@Valid EndpointHitDto> hits) {
+        statsService.saveAll(hits);
+    }
+
+    /*
+     * Read line by line and saved every ndjson-batch-size hits, so the body is never held in memory as a whole.
+     * A malformed or invalid line fails the request; the batches before it stay saved.
+     */
+    @PostMapping(value = "/hits/batch", consumes = APPLICATION_NDJSON)
+    @ResponseStatus(HttpStatus.CREATED)
+    public void saveAllNdjson(HttpServletRequest request) throws IOException {
+        ObjectReader reader = objectMapper.readerFor(EndpointHitDto.class);
+        List<EndpointHitDto> batch = new ArrayList<>(ndjsonBatchSize);
+        long saved = 0;
+        int lineNumber = 0;
+        try (BufferedReader lines = new BufferedReader(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                EndpointHitDto hit;
+                try {
+                    hit = reader.readValue(line);
+                } catch (JsonProcessingException e) {
+                    throw new BadRequestException("Некорректная строка NDJSON " + lineNumber + ", сохранено хитов: "
+                            + saved + ": " + e.getOriginalMessage());
+                }
+                Set<ConstraintViolation<EndpointHitDto>> violations = validator.validate(hit);
+                if (!violations.isEmpty()) {
+                    throw new ConstraintViolationException("Строка NDJSON " + lineNumber + ", сохранено хитов: "
+                            + saved, violations);
+                }
+                batch.add(hit);
+                if (batch.size() == ndjsonBatchSize) {
+                    statsService.saveAll(batch);
+                    saved += batch.size();
+                    batch = new ArrayList<>(ndjsonBatchSize);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            statsService.saveAll(batch);
+        }
+    }
+}
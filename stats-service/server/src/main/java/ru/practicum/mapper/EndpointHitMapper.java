@@ -4,8 +4,13 @@ import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import org.springframework.stereotype.Component;
 import ru.practicum.EndpointHitDto;
+import ru.practicum.exception.BadRequestException;
 import ru.practicum.model.EndpointHit;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Arrays;
+
 @Component
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class EndpointHitMapper {
@@ -13,7 +18,7 @@ public class EndpointHitMapper {
         return new EndpointHit(
                 hitDto.getApp(),
                 hitDto.getUri(),
-                hitDto.getIp(),
+                toIpBytes(hitDto.getIp()),
                 hitDto.getTimestamp()
         );
     }
@@ -22,8 +27,153 @@ public class EndpointHitMapper {
         return new EndpointHitDto(
                 hit.getApp(),
                 hit.getUri(),
-                hit.getIp(),
+                toIpString(hit.getIp()),
                 hit.getTimestamp()
         );
     }
+
+    // 4 bytes for IPv4, 16 for IPv6; IPv4-mapped IPv6 addresses collapse to 4 bytes
+    public static byte[] toIpBytes(String ip) {
+        String value = ip.trim();
+        if (value.indexOf(':') < 0) {
+            return parseIpv4(value);
+        }
+        byte[] bytes = parseIpv6(value);
+        if (bytes == null) {
+            throw new BadRequestException("Некорректный IP-адрес: " + ip);
+        }
+        return isIpv4Mapped(bytes) ? Arrays.copyOfRange(bytes, 12, 16) : bytes;
+    }
+
+    public static String toIpString(byte[] ip) {
+        try {
+            return InetAddress.getByAddress(ip).getHostAddress();
+        } catch (UnknownHostException e) {
+            throw new IllegalArgumentException("IP-адрес должен занимать 4 или 16 байт, получено " + ip.length);
+        }
+    }
+
+    private static byte[] parseIpv4(String ip) {
+        String[] octets = ip.split("\\.", -1);
+        if (octets.length != 4) {
+            throw new BadRequestException("Некорректный IP-адрес: " + ip);
+        }
+        byte[] bytes = new byte[4];
+        for (int i = 0; i < octets.length; i++) {
+            int octet = parseOctet(octets[i]);
+            if (octet < 0) {
+                throw new BadRequestException("Некорректный IP-адрес: " + ip);
+            }
+            bytes[i] = (byte) octet;
+        }
+        return bytes;
+    }
+
+    /*
+     * Parsed by hand: InetAddress.getByName only treats its argument as a literal when it looks like one, anything
+     * else (e.g. "g::1" or "host:80") becomes a blocking DNS lookup on the ingest path. Returns null when the value
+     * is not hextets separated by ':' with at most one "::", optionally ending in a dotted IPv4 address.
+     */
+    private static byte[] parseIpv6(String ip) {
+        int gap = ip.indexOf("::");
+        if (gap >= 0 && ip.indexOf("::", gap + 1) >= 0) {
+            return null;
+        }
+        String head = gap >= 0 ? ip.substring(0, gap) : ip;
+        String tail = gap >= 0 ? ip.substring(gap + 2) : "";
+        // the dotted quad can only fill the last 32 bits, so "1.2.3.4::" is rejected
+        byte[] headBytes = parseHextets(head, gap < 0);
+        byte[] tailBytes = parseHextets(tail, true);
+        if (headBytes == null || tailBytes == null) {
+            return null;
+        }
+        int length = headBytes.length + tailBytes.length;
+        if (gap < 0 ? length != 16 : length > 14) {
+            return null;
+        }
+        byte[] bytes = new byte[16];
+        System.arraycopy(headBytes, 0, bytes, 0, headBytes.length);
+        System.arraycopy(tailBytes, 0, bytes, 16 - tailBytes.length, tailBytes.length);
+        return bytes;
+    }
+
+    // hextets of one side of "::"; only the last side may end in a dotted IPv4 address
+    private static byte[] parseHextets(String part, boolean last) {
+        if (part.isEmpty()) {
+            return new byte[0];
+        }
+        String[] groups = part.split(":", -1);
+        boolean ipv4 = last && groups[groups.length - 1].indexOf('.') >= 0;
+        byte[] bytes = new byte[groups.length * 2 + (ipv4 ? 2 : 0)];
+        if (bytes.length > 16) {
+            return null;
+        }
+        for (int i = 0; i < groups.length; i++) {
+            if (ipv4 && i == groups.length - 1) {
+                String[] octets = groups[i].split("\\.", -1);
+                if (octets.length != 4) {
+                    return null;
+                }
+                for (int j = 0; j < 4; j++) {
+                    int octet = parseOctet(octets[j]);
+                    if (octet < 0) {
+                        return null;
+                    }
+                    bytes[i * 2 + j] = (byte) octet;
+                }
+                continue;
+            }
+            int hextet = parseHextet(groups[i]);
+            if (hextet < 0) {
+                return null;
+            }
+            bytes[i * 2] = (byte) (hextet >>> 8);
+            bytes[i * 2 + 1] = (byte) hextet;
+        }
+        return bytes;
+    }
+
+    private static int parseHextet(String hextet) {
+        if (hextet.isEmpty() || hextet.length() > 4) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < hextet.length(); i++) {
+            char c = hextet.charAt(i);
+            int digit;
+            if (c >= '0' && c <= '9') {
+                digit = c - '0';
+            } else if (c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F') {
+                digit = Character.toLowerCase(c) - 'a' + 10;
+            } else {
+                return -1;
+            }
+            value = value * 16 + digit;
+        }
+        return value;
+    }
+
+    private static boolean isIpv4Mapped(byte[] bytes) {
+        for (int i = 0; i < 10; i++) {
+            if (bytes[i] != 0) {
+                return false;
+            }
+        }
+        return bytes[10] == (byte) 0xff && bytes[11] == (byte) 0xff;
+    }
+
+    private static int parseOctet(String octet) {
+        if (octet.isEmpty() || octet.length() > 3) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < octet.length(); i++) {
+            char c = octet.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value > 255 ? -1 : value;
+    }
 }
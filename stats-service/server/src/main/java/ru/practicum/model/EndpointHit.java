@@ -23,13 +23,13 @@ public class EndpointHit {
     @Column(nullable = false)
     private String uri;
 
-    @Column(nullable = false, length = 15)
-    private String ip;
+    @Column(nullable = false, length = 16)
+    private byte[] ip;
 
     @Column(nullable = false)
     private LocalDateTime timestamp;
 
-    public EndpointHit(String app, String uri, String ip, LocalDateTime timestamp) {
+    public EndpointHit(String app, String uri, byte[] ip, LocalDateTime timestamp) {
         this.app = app;
         this.uri = uri;
         this.ip = ip;
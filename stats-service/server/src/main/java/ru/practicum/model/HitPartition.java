@@ -0,0 +1,10 @@
+package ru.practicum.model;
+
+import java.time.LocalDateTime;
+
+public record HitPartition(String name, LocalDateTime from, LocalDateTime to) {
+
+    public boolean overlaps(LocalDateTime start, LocalDateTime end) {
+        return from.isBefore(end) && start.isBefore(to);
+    }
+}
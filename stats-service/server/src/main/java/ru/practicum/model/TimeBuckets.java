@@ -0,0 +1,45 @@
+package ru.practicum.model;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/*
+ * Splits [start, end] into contiguous pieces that are read from different tables:
+ * raw hits [start, minuteStart), minute rollups [minuteStart, hourStart), hour rollups [hourStart, hourEnd),
+ * minute rollups [hourEnd, minuteEnd) and raw hits [minuteEnd, end].
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class TimeBuckets {
+    private final LocalDateTime start;
+    private final LocalDateTime minuteStart;
+    private final LocalDateTime hourStart;
+    private final LocalDateTime hourEnd;
+    private final LocalDateTime minuteEnd;
+    private final LocalDateTime end;
+
+    public static TimeBuckets of(LocalDateTime start, LocalDateTime end) {
+        LocalDateTime minuteStart = ceil(start, ChronoUnit.MINUTES);
+        LocalDateTime minuteEnd = end.truncatedTo(ChronoUnit.MINUTES);
+        if (minuteStart.isAfter(minuteEnd)) {
+            minuteStart = end;
+            minuteEnd = end;
+        }
+        LocalDateTime hourStart = ceil(minuteStart, ChronoUnit.HOURS);
+        LocalDateTime hourEnd = minuteEnd.truncatedTo(ChronoUnit.HOURS);
+        if (hourStart.isAfter(hourEnd)) {
+            hourStart = minuteEnd;
+            hourEnd = minuteEnd;
+        }
+        return new TimeBuckets(start, minuteStart, hourStart, hourEnd, minuteEnd, end);
+    }
+
+    private static LocalDateTime ceil(LocalDateTime time, ChronoUnit unit) {
+        LocalDateTime floor = time.truncatedTo(unit);
+        return floor.equals(time) ? time : floor.plus(1, unit);
+    }
+}
@@ -0,0 +1,72 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.ViewStatsDto;
+import ru.practicum.model.BucketCount;
+import ru.practicum.model.EndpointHit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+@Repository
+@RequiredArgsConstructor
+public class HitJdbcRepository {
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final StreamingJdbcTemplate streamingJdbcTemplate;
+
+    public void saveAll(List<EndpointHit> hits) {
+        jdbcTemplate.batchUpdate("INSERT INTO hits (app, uri, ip, timestamp) VALUES (?, ?, ?, ?)",
+                hits, BATCH_SIZE, (ps, hit) -> {
+                    ps.setString(1, hit.getApp());
+                    ps.setString(2, hit.getUri());
+                    ps.setBytes(3, hit.getIp());
+                    ps.setObject(4, hit.getTimestamp());
+                });
+    }
+
+    public void countBySecond(LocalDateTime from, Consumer<BucketCount> consumer) {
+        jdbcTemplate.query("SELECT app, uri, date_trunc('second', timestamp) AS second, COUNT(*) AS hits " +
+                "FROM hits WHERE timestamp >= ? GROUP BY app, uri, date_trunc('second', timestamp)", rs -> {
+                    consumer.accept(new BucketCount(rs.getString("app"), rs.getString("uri"),
+                            rs.getObject("second", LocalDateTime.class), rs.getLong("hits")));
+                }, from);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ViewStatsDto> getUniqueHits(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        return namedJdbcTemplate.query(uniqueHitsQuery(uris, null), uniqueHitsParams(start, end, uris, null),
+                (rs, rowNum) -> new ViewStatsDto(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+
+    public void streamUniqueHits(LocalDateTime start, LocalDateTime end, List<String> uris, Integer limit,
+                                 Consumer<ViewStatsDto> consumer) {
+        streamingJdbcTemplate.query(uniqueHitsQuery(uris, limit), uniqueHitsParams(start, end, uris, limit), rs -> {
+            consumer.accept(new ViewStatsDto(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+        });
+    }
+
+    // uris are bound as one text[] parameter, so the statement stays the same size for any number of them
+    private String uniqueHitsQuery(List<String> uris, Integer limit) {
+        return "SELECT app, uri, COUNT(DISTINCT ip) AS hits FROM hits " +
+                "WHERE timestamp BETWEEN :start AND :end" + (uris != null ? " AND uri = ANY(:uris)" : "") +
+                " GROUP BY app, uri ORDER BY hits DESC" + (limit != null ? " LIMIT :limit" : "");
+    }
+
+    private MapSqlParameterSource uniqueHitsParams(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                                   Integer limit) {
+        return new MapSqlParameterSource()
+                .addValue("start", start)
+                .addValue("end", end)
+                .addValue("uris", uris != null ? uris.toArray(String[]::new) : null)
+                .addValue("limit", limit);
+    }
+}
@@ -0,0 +1,73 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.model.HitPartition;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Repository
+@RequiredArgsConstructor
+public class HitPartitionRepository {
+    private static final Pattern BOUNDS = Pattern.compile("FROM \\((.+?)\\) TO \\((.+?)\\)");
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<HitPartition> findAll() {
+        return jdbcTemplate.query("SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) AS bound " +
+                        "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = 'hits'::regclass",
+                (rs, rowNum) -> toPartition(rs.getString("relname"), rs.getString("bound"))).stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Transactional
+    public String create(LocalDateTime from, LocalDateTime to) {
+        String name = "hits_" + from.format(NAME_FORMAT);
+        // rows that landed in the default partition for this range have to move out before the attach
+        jdbcTemplate.execute("LOCK TABLE hits_default IN ACCESS EXCLUSIVE MODE");
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE hits INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+        jdbcTemplate.update("WITH moved AS (DELETE FROM hits_default " +
+                "WHERE timestamp >= ? AND timestamp < ? RETURNING *) " +
+                "INSERT INTO " + name + " SELECT * FROM moved", from, to);
+        jdbcTemplate.execute("ALTER TABLE hits ATTACH PARTITION " + name + " FOR VALUES FROM ('" +
+                from.format(BOUND_FORMAT) + "') TO ('" + to.format(BOUND_FORMAT) + "')");
+        return name;
+    }
+
+    @Transactional
+    public void drop(HitPartition partition) {
+        jdbcTemplate.execute("DROP TABLE " + partition.name());
+    }
+
+    @Transactional
+    public int deleteFromDefault(LocalDateTime before) {
+        return jdbcTemplate.update("DELETE FROM hits_default WHERE timestamp < ?", before);
+    }
+
+    private HitPartition toPartition(String name, String bound) {
+        Matcher matcher = BOUNDS.matcher(bound);
+        if (!matcher.find()) {
+            return null;
+        }
+        return new HitPartition(name, toBound(matcher.group(1)), toBound(matcher.group(2)));
+    }
+
+    private LocalDateTime toBound(String value) {
+        return switch (value) {
+            case "MINVALUE" -> LocalDateTime.MIN;
+            case "MAXVALUE" -> LocalDateTime.MAX;
+            default -> LocalDateTime.parse(value.replace("'", ""), BOUND_FORMAT);
+        };
+    }
+}
@@ -0,0 +1,132 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.ViewStatsDto;
+import ru.practicum.model.BucketCount;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.TimeBuckets;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+@Repository
+@RequiredArgsConstructor
+public class HitRollupRepository {
+    private static final int BATCH_SIZE = 1000;
+    private static final Comparator<BucketKey> KEY_ORDER = Comparator.comparing(BucketKey::uri)
+            .thenComparing(BucketKey::bucket)
+            .thenComparing(BucketKey::app);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final StreamingJdbcTemplate streamingJdbcTemplate;
+
+    public void add(List<EndpointHit> hits) {
+        upsert("hits_minute", aggregate(hits, ChronoUnit.MINUTES));
+        upsert("hits_hour", aggregate(hits, ChronoUnit.HOURS));
+    }
+
+    @Transactional(readOnly = true)
+    public List<ViewStatsDto> getHits(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        return jdbcTemplate.query(hitsQuery(uris, null), hitsParams(start, end, uris, null), (rs, rowNum) ->
+                new ViewStatsDto(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+
+    @Transactional(readOnly = true)
+    public List<ViewStatsDto> getTopHits(LocalDateTime start, LocalDateTime end, int limit) {
+        return jdbcTemplate.query(hitsQuery(null, limit), hitsParams(start, end, null, limit), (rs, rowNum) ->
+                new ViewStatsDto(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+
+    public void streamHits(LocalDateTime start, LocalDateTime end, List<String> uris, Integer limit,
+                           Consumer<ViewStatsDto> consumer) {
+        streamingJdbcTemplate.query(hitsQuery(uris, limit), hitsParams(start, end, uris, limit), rs -> {
+            consumer.accept(new ViewStatsDto(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+        });
+    }
+
+    // exact hits of [start, end] outside its whole hours, see TimeBuckets
+    public List<ViewStatsDto> getHitsOutsideHours(LocalDateTime start, LocalDateTime end) {
+        String sql = "SELECT app, uri, SUM(hits) AS hits FROM (" + edgeHitsQuery("") + ") AS t GROUP BY app, uri";
+        return jdbcTemplate.query(sql, hitsParams(start, end, null, null), (rs, rowNum) ->
+                new ViewStatsDto(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+
+    public void countByHour(LocalDateTime from, Consumer<BucketCount> consumer) {
+        jdbcTemplate.query("SELECT app, uri, bucket, hits FROM hits_hour WHERE bucket >= :from",
+                new MapSqlParameterSource("from", from), rs -> {
+                    consumer.accept(new BucketCount(rs.getString("app"), rs.getString("uri"),
+                            rs.getObject("bucket", LocalDateTime.class), rs.getLong("hits")));
+                });
+    }
+
+    private String hitsQuery(List<String> uris, Integer limit) {
+        String uriFilter = uris != null ? " AND uri = ANY(:uris)" : "";
+        String sql = "SELECT app, uri, SUM(hits) AS hits FROM (" +
+                "SELECT app, uri, hits FROM hits_hour " +
+                "WHERE bucket >= :hourStart AND bucket < :hourEnd" + uriFilter +
+                " UNION ALL " + edgeHitsQuery(uriFilter) +
+                ") AS t " +
+                "GROUP BY app, uri " +
+                "ORDER BY SUM(t.hits) DESC";
+        return limit != null ? sql + " LIMIT :limit" : sql;
+    }
+
+    private String edgeHitsQuery(String uriFilter) {
+        return "SELECT app, uri, hits FROM hits_minute " +
+                "WHERE (bucket >= :minuteStart AND bucket < :hourStart " +
+                "OR bucket >= :hourEnd AND bucket < :minuteEnd)" + uriFilter +
+                " UNION ALL " +
+                "SELECT app, uri, 1 FROM hits " +
+                "WHERE (timestamp >= :start AND timestamp < :minuteStart " +
+                "OR timestamp >= :minuteEnd AND timestamp <= :end)" + uriFilter;
+    }
+
+    private MapSqlParameterSource hitsParams(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                             Integer limit) {
+        TimeBuckets buckets = TimeBuckets.of(start, end);
+        return new MapSqlParameterSource()
+                .addValue("start", buckets.getStart())
+                .addValue("minuteStart", buckets.getMinuteStart())
+                .addValue("hourStart", buckets.getHourStart())
+                .addValue("hourEnd", buckets.getHourEnd())
+                .addValue("minuteEnd", buckets.getMinuteEnd())
+                .addValue("end", buckets.getEnd())
+                .addValue("uris", uris != null ? uris.toArray(String[]::new) : null)
+                .addValue("limit", limit);
+    }
+
+    private Map<BucketKey, Long> aggregate(List<EndpointHit> hits, ChronoUnit unit) {
+        // sorted keys keep the row lock order stable across concurrent upserts
+        Map<BucketKey, Long> counts = new TreeMap<>(KEY_ORDER);
+        for (EndpointHit hit : hits) {
+            BucketKey key = new BucketKey(hit.getApp(), hit.getUri(), hit.getTimestamp().truncatedTo(unit));
+            counts.merge(key, 1L, Long::sum);
+        }
+        return counts;
+    }
+
+    private void upsert(String table, Map<BucketKey, Long> counts) {
+        String sql = "INSERT INTO " + table + " (app, uri, bucket, hits) VALUES (?, ?, ?, ?) " +
+                "ON CONFLICT (uri, bucket, app) DO UPDATE SET hits = " + table + ".hits + EXCLUDED.hits";
+        jdbcTemplate.getJdbcTemplate().batchUpdate(sql, new ArrayList<>(counts.entrySet()), BATCH_SIZE,
+                (ps, entry) -> {
+                    ps.setString(1, entry.getKey().app());
+                    ps.setString(2, entry.getKey().uri());
+                    ps.setObject(3, entry.getKey().bucket());
+                    ps.setLong(4, entry.getValue());
+                });
+    }
+
+    private record BucketKey(String app, String uri, LocalDateTime bucket) {
+    }
+}
@@ -0,0 +1,130 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.ViewStatsDto;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.TimeBuckets;
+import ru.practicum.sketch.HyperLogLog;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+@Repository
+@RequiredArgsConstructor
+public class HitSketchRepository {
+    private static final Comparator<SketchKey> KEY_ORDER = Comparator.comparing(SketchKey::uri)
+            .thenComparing(SketchKey::bucket)
+            .thenComparing(SketchKey::app);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void add(List<EndpointHit> hits) {
+        Map<SketchKey, HyperLogLog> deltas = new TreeMap<>(KEY_ORDER);
+        for (EndpointHit hit : hits) {
+            SketchKey key = new SketchKey(hit.getApp(), hit.getUri(), hit.getTimestamp().truncatedTo(ChronoUnit.HOURS));
+            deltas.computeIfAbsent(key, k -> new HyperLogLog()).offer(HyperLogLog.hash(hit.getIp()));
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+        // new sketches go in as they are, rows that already exist are skipped here and merged below
+        Set<SketchKey> inserted = insertAbsent(deltas);
+        deltas.keySet().removeAll(inserted);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        // registers are merged here under the row locks, so concurrent writers of one sketch cannot lose registers;
+        // inserts go in a fixed order and the locks are taken by one ordered statement, so batches never deadlock
+        List<Map.Entry<SketchKey, HyperLogLog>> merged = new ArrayList<>(deltas.size());
+        jdbcTemplate.getJdbcTemplate().query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT app, uri, bucket, registers FROM hits_sketch " +
+                    "WHERE (uri, bucket, app) IN (SELECT * FROM unnest(?::varchar[], ?::timestamp[], ?::varchar[])) " +
+                    "ORDER BY uri, bucket, app FOR UPDATE");
+            ps.setArray(1, con.createArrayOf("varchar", deltas.keySet().stream().map(SketchKey::uri).toArray()));
+            ps.setArray(2, con.createArrayOf("timestamp", deltas.keySet().stream().map(SketchKey::bucket)
+                    .map(Timestamp::valueOf).toArray()));
+            ps.setArray(3, con.createArrayOf("varchar", deltas.keySet().stream().map(SketchKey::app).toArray()));
+            return ps;
+        }, rs -> {
+            SketchKey key = new SketchKey(rs.getString("app"), rs.getString("uri"),
+                    rs.getObject("bucket", LocalDateTime.class));
+            merged.add(Map.entry(key, HyperLogLog.fromBytes(rs.getBytes("registers")).merge(deltas.get(key))));
+        });
+        jdbcTemplate.getJdbcTemplate().batchUpdate("UPDATE hits_sketch SET registers = ? " +
+                        "WHERE uri = ? AND bucket = ? AND app = ?",
+                merged, merged.size(), (ps, entry) -> {
+                    ps.setBytes(1, entry.getValue().toBytes());
+                    ps.setString(2, entry.getKey().uri());
+                    ps.setObject(3, entry.getKey().bucket());
+                    ps.setString(4, entry.getKey().app());
+                });
+    }
+
+    private Set<SketchKey> insertAbsent(Map<SketchKey, HyperLogLog> deltas) {
+        Set<SketchKey> inserted = new HashSet<>();
+        jdbcTemplate.getJdbcTemplate().query(con -> {
+            PreparedStatement ps = con.prepareStatement("INSERT INTO hits_sketch (app, uri, bucket, registers) " +
+                    "SELECT * FROM unnest(?::varchar[], ?::varchar[], ?::timestamp[], ?::bytea[]) " +
+                    "ON CONFLICT (uri, bucket, app) DO NOTHING RETURNING app, uri, bucket");
+            ps.setArray(1, con.createArrayOf("varchar", deltas.keySet().stream().map(SketchKey::app).toArray()));
+            ps.setArray(2, con.createArrayOf("varchar", deltas.keySet().stream().map(SketchKey::uri).toArray()));
+            ps.setArray(3, con.createArrayOf("timestamp", deltas.keySet().stream().map(SketchKey::bucket)
+                    .map(Timestamp::valueOf).toArray()));
+            ps.setArray(4, con.createArrayOf("bytea", deltas.values().stream().map(HyperLogLog::toBytes)
+                    .toArray(byte[][]::new)));
+            return ps;
+        }, rs -> {
+            inserted.add(new SketchKey(rs.getString("app"), rs.getString("uri"),
+                    rs.getObject("bucket", LocalDateTime.class)));
+        });
+        return inserted;
+    }
+
+    @Transactional(readOnly = true)
+    public List<ViewStatsDto> getUniqueHits(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        TimeBuckets buckets = TimeBuckets.of(start, end);
+        String uriFilter = uris != null ? " AND uri = ANY(:uris)" : "";
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("start", buckets.getStart())
+                .addValue("hourStart", buckets.getHourStart())
+                .addValue("hourEnd", buckets.getHourEnd())
+                .addValue("end", buckets.getEnd())
+                .addValue("uris", uris != null ? uris.toArray(String[]::new) : null);
+        Map<AppUri, HyperLogLog> sketches = new HashMap<>();
+        jdbcTemplate.query("SELECT app, uri, registers FROM hits_sketch " +
+                "WHERE bucket >= :hourStart AND bucket < :hourEnd" + uriFilter, params, rs -> {
+                    sketches.computeIfAbsent(new AppUri(rs.getString("app"), rs.getString("uri")),
+                            k -> new HyperLogLog()).merge(HyperLogLog.fromBytes(rs.getBytes("registers")));
+                });
+        jdbcTemplate.query("SELECT app, uri, ip FROM hits " +
+                "WHERE (timestamp >= :start AND timestamp < :hourStart " +
+                "OR timestamp >= :hourEnd AND timestamp <= :end)" + uriFilter, params, rs -> {
+                    sketches.computeIfAbsent(new AppUri(rs.getString("app"), rs.getString("uri")),
+                            k -> new HyperLogLog()).offer(HyperLogLog.hash(rs.getBytes("ip")));
+                });
+        return sketches.entrySet().stream()
+                .map(entry -> new ViewStatsDto(entry.getKey().app(), entry.getKey().uri(), entry.getValue().estimate()))
+                .sorted(Comparator.comparing(ViewStatsDto::getHits).reversed())
+                .toList();
+    }
+
+    private record SketchKey(String app, String uri, LocalDateTime bucket) {
+    }
+
+    private record AppUri(String app, String uri) {
+    }
+}
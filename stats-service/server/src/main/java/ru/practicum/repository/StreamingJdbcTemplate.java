@@ -0,0 +1,27 @@
+package ru.practicum.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+// Fetches rows in chunks through a server-side cursor; only works inside a transaction (autocommit off).
+@Component
+public class StreamingJdbcTemplate {
+    private static final int FETCH_SIZE = 500;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public StreamingJdbcTemplate(DataSource dataSource) {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setFetchSize(FETCH_SIZE);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(template);
+    }
+
+    public void query(String sql, SqlParameterSource params, RowCallbackHandler handler) {
+        jdbcTemplate.query(sql, params, handler);
+    }
+}
@@ -0,0 +1,26 @@
+package ru.practicum.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.wal.WalPosition;
+
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class WalCheckpointRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public WalPosition find() {
+        List<WalPosition> positions = jdbcTemplate.query("SELECT segment, position FROM hits_wal_checkpoint WHERE id = 1",
+                (rs, rowNum) -> new WalPosition(rs.getLong("segment"), rs.getInt("position")));
+        return positions.isEmpty() ? WalPosition.START : positions.getFirst();
+    }
+
+    public void save(WalPosition position) {
+        jdbcTemplate.update("INSERT INTO hits_wal_checkpoint (id, segment, position) VALUES (1, ?, ?) " +
+                "ON CONFLICT (id) DO UPDATE SET segment = EXCLUDED.segment, position = EXCLUDED.position",
+                position.segment(), position.offset());
+    }
+}
@@ -0,0 +1,70 @@
+package ru.practicum.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.practicum.model.HitPartition;
+import ru.practicum.model.PartitionInterval;
+import ru.practicum.repository.HitPartitionRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HitPartitionService {
+    private final HitPartitionRepository hitPartitionRepository;
+    @Value("${stats.partition.interval:DAY}")
+    private PartitionInterval interval;
+    @Value("${stats.partition.premake:3}")
+    private int premake;
+    @Value("${stats.partition.retention-days:0}")
+    private int retentionDays;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${stats.partition.cron:0 0 * * * *}")
+    public void maintain() {
+        LocalDateTime now = LocalDateTime.now();
+        List<HitPartition> partitions = hitPartitionRepository.findAll();
+        createAhead(now, partitions);
+        if (retentionDays > 0) {
+            dropExpired(now.minusDays(retentionDays), partitions);
+        }
+    }
+
+    private void createAhead(LocalDateTime now, List<HitPartition> partitions) {
+        LocalDateTime from = interval.floor(now);
+        for (int i = 0; i <= premake; i++) {
+            LocalDateTime to = interval.next(from);
+            LocalDateTime start = from;
+            if (partitions.stream().noneMatch(partition -> partition.overlaps(start, to))) {
+                try {
+                    String name = hitPartitionRepository.create(from, to);
+                    log.info("Создана партиция {} с {} по {}", name, from, to);
+                } catch (DataAccessException e) {
+                    log.warn("Не удалось создать партицию с {} по {}: {}", from, to, e.getMessage());
+                }
+            }
+            from = to;
+        }
+    }
+
+    private void dropExpired(LocalDateTime cutoff, List<HitPartition> partitions) {
+        for (HitPartition partition : partitions) {
+            if (!partition.to().isAfter(cutoff)) {
+                hitPartitionRepository.drop(partition);
+                log.info("Удалена партиция {} с {} по {}", partition.name(), partition.from(), partition.to());
+            }
+        }
+        int deleted = hitPartitionRepository.deleteFromDefault(cutoff);
+        if (deleted > 0) {
+            log.info("Из партиции по умолчанию удалено {} хитов старше {}", deleted, cutoff);
+        }
+    }
+}
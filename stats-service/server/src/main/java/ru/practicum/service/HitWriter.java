@@ -0,0 +1,55 @@
+package ru.practicum.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.repository.HitJdbcRepository;
+import ru.practicum.repository.HitRollupRepository;
+import ru.practicum.repository.HitSketchRepository;
+import ru.practicum.repository.WalCheckpointRepository;
+import ru.practicum.wal.WalPosition;
+import ru.practicum.window.HitWindow;
+import ru.practicum.window.TopHitWindow;
+
+import java.util.List;
+
+// Single write path for hits: raw rows, rollups and sketches in one transaction, in-memory views after commit.
+@Component
+@RequiredArgsConstructor
+public class HitWriter {
+    private final HitJdbcRepository hitJdbcRepository;
+    private final HitRollupRepository hitRollupRepository;
+    private final HitSketchRepository hitSketchRepository;
+    private final WalCheckpointRepository walCheckpointRepository;
+    private final HitWindow hitWindow;
+    private final TopHitWindow topHitWindow;
+
+    @Transactional
+    public void write(List<EndpointHit> hits) {
+        hitJdbcRepository.saveAll(hits);
+        hitRollupRepository.add(hits);
+        hitSketchRepository.add(hits);
+        recordAfterCommit(hits);
+    }
+
+    // the drained position commits together with the rows, so a crash in between never replays them twice
+    @Transactional
+    public void write(List<EndpointHit> hits, WalPosition drained) {
+        write(hits);
+        walCheckpointRepository.save(drained);
+    }
+
+    // in-memory counters must not run ahead of the database, so they are fed only after the commit
+    private void recordAfterCommit(List<EndpointHit> hits) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                hitWindow.record(hits);
+                topHitWindow.record(hits);
+            }
+        });
+    }
+}
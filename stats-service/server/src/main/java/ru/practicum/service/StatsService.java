@@ -5,10 +5,19 @@ import ru.practicum.ViewStatsDto;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface StatsService {
 
     EndpointHitDto save(EndpointHitDto hit);
 
-    List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique);
+    void saveAll(List<EndpointHitDto> hits);
+
+    List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique,
+                                Boolean approx);
+
+    List<ViewStatsDto> getTop(LocalDateTime start, LocalDateTime end, int k);
+
+    void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique, Integer limit,
+                     Consumer<ViewStatsDto> consumer);
 }
\ No newline at end of file
@@ -2,52 +2,130 @@ package ru.practicum.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.EndpointHitDto;
 import ru.practicum.ViewStatsDto;
 import ru.practicum.exception.BadRequestException;
+import ru.practicum.exception.InternalServerException;
 import ru.practicum.mapper.EndpointHitMapper;
 import ru.practicum.model.EndpointHit;
-import ru.practicum.repository.StatsRepository;
+import ru.practicum.repository.HitJdbcRepository;
+import ru.practicum.repository.HitRollupRepository;
+import ru.practicum.repository.HitSketchRepository;
+import ru.practicum.wal.HitLog;
+import ru.practicum.window.HitWindow;
+import ru.practicum.window.TopHitWindow;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class StatsServiceImpl implements StatsService {
-    private final StatsRepository statsRepository;
+    private final HitJdbcRepository hitJdbcRepository;
+    private final HitRollupRepository hitRollupRepository;
+    private final HitSketchRepository hitSketchRepository;
+    private final HitWindow hitWindow;
+    private final TopHitWindow topHitWindow;
+    private final HitWriter hitWriter;
+    private final ObjectProvider<HitLog> hitLog;
 
-    @Transactional
     @Override
     public EndpointHitDto save(EndpointHitDto hitDto) {
         log.info("Сохраняем: {}", hitDto);
-        EndpointHit endpointHit = statsRepository.save(EndpointHitMapper.toHitEntity(hitDto));
+        EndpointHit endpointHit = EndpointHitMapper.toHitEntity(hitDto);
+        ingest(List.of(endpointHit));
         return EndpointHitMapper.toEndpointHitDto(endpointHit);
     }
 
-    @Transactional(readOnly = true)
     @Override
-    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique) {
+    public void saveAll(List<EndpointHitDto> hits) {
+        log.info("Сохраняем пачку из {} хитов", hits.size());
+        ingest(hits.stream().map(EndpointHitMapper::toHitEntity).toList());
+    }
+
+    // no transaction here: the window branch must not take a connection, the repositories open their own
+    @Override
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique,
+                                       Boolean approx) {
         if (start.isAfter(end)) {
             throw new BadRequestException("Время указанно не верно");
         }
+        if (uris != null && uris.isEmpty()) {
+            return List.of();
+        }
+        if (unique && approx) {
+            log.info("Оценка уникальных обращений по HyperLogLog с {} по {}, uris: {}", start, end, uris);
+            return hitSketchRepository.getUniqueHits(start, end, uris);
+        }
         if (unique) {
-            if (uris != null) {
-                log.info("Unique uris. Статистика уникальных обращений с {} по {}", start, end);
-                return statsRepository.getHitsWithUrisWithUniqueIp(uris, start, end);
-            }
-            log.info("Без uris. Статистика уникальных обращений с {} по {}", start, end);
-            return statsRepository.getHitsWithoutUrisWithUniqueIp(start, end);
+            log.info("Статистика уникальных обращений с {} по {}, uris: {}", start, end,
+                    uris != null ? uris.size() : "все");
+            return hitJdbcRepository.getUniqueHits(start, end, uris);
+        }
+        if (hitWindow.covers(start, end)) {
+            log.info("Статистика обращений из окна в памяти с {} по {}, uris: {}", start, end, uris);
+            return hitWindow.getHits(start, end, uris);
+        }
+        log.info("Статистика обращений по агрегатам с {} по {}, uris: {}", start, end, uris);
+        return hitRollupRepository.getHits(start, end, uris);
+    }
+
+    @Override
+    public List<ViewStatsDto> getTop(LocalDateTime start, LocalDateTime end, int k) {
+        if (start.isAfter(end)) {
+            throw new BadRequestException("Время указанно не верно");
+        }
+        if (k > topHitWindow.getCapacity()) {
+            throw new BadRequestException("k не может превышать " + topHitWindow.getCapacity());
+        }
+        if (topHitWindow.covers(start, end)) {
+            log.info("Топ-{} обращений из сводок в памяти с {} по {}", k, start, end);
+            return topHitWindow.getTop(start, end, k);
+        }
+        log.info("Топ-{} обращений по агрегатам с {} по {}", k, start, end);
+        return hitRollupRepository.getTopHits(start, end, k);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique,
+                            Integer limit, Consumer<ViewStatsDto> consumer) {
+        if (uris != null && uris.isEmpty()) {
+            return;
+        }
+        log.info("Потоковая выгрузка статистики с {} по {}, unique: {}, limit: {}", start, end, unique, limit);
+        if (unique) {
+            hitJdbcRepository.streamUniqueHits(start, end, uris, limit, consumer);
         } else {
-            if (uris != null) {
-                log.info("Not unique uris. Статистика обращений с {} по {}", start, end);
-                return statsRepository.getAllHitsWithUris(uris, start, end);
+            hitRollupRepository.streamHits(start, end, uris, limit, consumer);
+        }
+    }
+
+    // with stats.ingest.mode=wal hits are acknowledged once they are in the local log, the drainer loads them later
+    private void ingest(List<EndpointHit> hits) {
+        // the same rule as @Past on EndpointHitDto, checked here for every path so the in-memory window and the
+        // database never disagree about a hit
+        LocalDateTime now = LocalDateTime.now();
+        for (EndpointHit hit : hits) {
+            if (hit.getTimestamp().isAfter(now)) {
+                throw new BadRequestException("Время обращения не может быть в будущем: " + hit.getTimestamp());
             }
-            log.info("Без uris. Статистика обращений с {} по {}", start, end);
-            return statsRepository.getAllHitsWithoutUris(start, end);
+        }
+        HitLog walLog = hitLog.getIfAvailable();
+        if (walLog == null) {
+            hitWriter.write(hits);
+            return;
+        }
+        try {
+            walLog.append(hits);
+        } catch (IOException e) {
+            throw new InternalServerException("Не удалось записать хиты в журнал: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
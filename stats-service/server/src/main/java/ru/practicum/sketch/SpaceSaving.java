@@ -0,0 +1,69 @@
+package ru.practicum.sketch;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/*
+ * Space-Saving summary (Metwally et al.) holding at most `capacity` counters.
+ * When full, a new key takes over the smallest counter and keeps counting from its value,
+ * so every reported count is an upper bound that overestimates by at most total / capacity.
+ * Any key whose true count exceeds total / capacity is guaranteed to be present, and an absent key
+ * cannot have counted more than the smallest counter (floor).
+ */
+public class SpaceSaving<K> {
+    private final int capacity;
+    private final Map<K, Long> counts = new HashMap<>();
+    private final TreeMap<Long, Set<K>> byCount = new TreeMap<>();
+
+    public SpaceSaving(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public synchronized void offer(K key, long weight) {
+        Long count = counts.get(key);
+        if (count != null) {
+            unlink(key, count);
+        } else if (counts.size() < capacity) {
+            count = 0L;
+        } else {
+            Map.Entry<Long, Set<K>> min = byCount.firstEntry();
+            K evicted = min.getValue().iterator().next();
+            unlink(evicted, min.getKey());
+            counts.remove(evicted);
+            count = min.getKey();
+        }
+        long updated = count + weight;
+        counts.put(key, updated);
+        byCount.computeIfAbsent(updated, c -> new LinkedHashSet<>()).add(key);
+    }
+
+    /*
+     * Adds count - floor of every present key to excess and returns the floor. The upper bound of any key over
+     * several summaries is then its excess plus the sum of their floors, whether or not a summary holds the key.
+     */
+    public synchronized long mergeInto(Map<K, Long> excess) {
+        long floor = counts.size() < capacity ? 0 : byCount.firstKey();
+        counts.forEach((key, count) -> excess.merge(key, count - floor, Long::sum));
+        return floor;
+    }
+
+    public static <K> List<Map.Entry<K, Long>> top(Map<K, Long> totals, int k) {
+        List<Map.Entry<K, Long>> result = new ArrayList<>(totals.entrySet());
+        result.sort(Map.Entry.comparingByValue(Comparator.reverseOrder()));
+        return result.size() > k ? result.subList(0, k) : result;
+    }
+
+    private void unlink(K key, long count) {
+        Set<K> keys = byCount.get(count);
+        keys.remove(key);
+        if (keys.isEmpty()) {
+            byCount.remove(count);
+        }
+    }
+}
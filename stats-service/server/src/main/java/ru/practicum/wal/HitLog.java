@@ -0,0 +1,305 @@
+package ru.practicum.wal;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.model.EndpointHit;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/*
+ * Append-only log of accepted hits split into fixed-size memory-mapped segments named by consecutive ids.
+ * Each record is [int length][int crc32][payload]; the length is written last, so a torn record reads as
+ * length 0 or fails its checksum and marks the end of the log. Unused segment space stays zero-filled.
+ * Drained segments are zeroed and kept as spares for the next rolls instead of being deleted, so their mappings
+ * stay in use and no unmap is needed; spares beyond stats.wal.spare-segments are deleted and their mapping is
+ * released when the buffer is collected.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.ingest.mode", havingValue = "wal")
+public class HitLog implements InitializingBean, DisposableBean, MeterBinder {
+    private static final int HEADER = 8;
+    private static final String SUFFIX = ".log";
+    private static final String SPARE_SUFFIX = ".spare";
+    private static final byte[] ZEROS = new byte[64 * 1024];
+
+    @Value("${stats.wal.dir:wal}")
+    private Path dir;
+    @Value("${stats.wal.segment-size:67108864}")
+    private int segmentSize;
+    @Value("${stats.wal.fsync:false}")
+    private boolean fsync;
+    @Value("${stats.wal.spare-segments:2}")
+    private int spareSegments;
+    private final ConcurrentNavigableMap<Long, MappedByteBuffer> segments = new ConcurrentSkipListMap<>();
+    private final Deque<Spare> spares = new ArrayDeque<>();
+    private long writeSegment;
+    private int writeOffset;
+    private volatile WalPosition drained = WalPosition.START;
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        Files.createDirectories(dir);
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SUFFIX)) {
+                    segments.put(Long.parseLong(name.substring(0, name.length() - SUFFIX.length())), map(file));
+                } else if (name.endsWith(SPARE_SUFFIX)) {
+                    // spares are renamed only after they were zeroed and forced, so they are safe to reuse
+                    if (spares.size() < spareSegments) {
+                        spares.push(new Spare(file, map(file)));
+                    } else {
+                        Files.delete(file);
+                    }
+                }
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(0L, map(segmentPath(0)));
+        }
+        writeSegment = segments.lastKey();
+        writeOffset = scanEnd(segments.lastEntry().getValue());
+        drained = new WalPosition(segments.firstKey(), 0);
+        log.info("Журнал хитов открыт: {}, сегментов: {}, запись в сегмент {} с позиции {}",
+                dir, segments.size(), writeSegment, writeOffset);
+    }
+
+    @Override
+    public void destroy() {
+        synchronized (this) {
+            segments.values().forEach(MappedByteBuffer::force);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("stats.wal.segments", segments, Map::size)
+                .description("Segments of the hit log kept on disk")
+                .register(registry);
+        Gauge.builder("stats.wal.lag", this, HitLog::lagBytes)
+                .description("Bytes of the hit log not yet drained into the database")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    public synchronized void append(List<EndpointHit> hits) throws IOException {
+        for (EndpointHit hit : hits) {
+            byte[] payload = encode(hit);
+            int size = HEADER + payload.length;
+            MappedByteBuffer buffer = segments.get(writeSegment);
+            if (writeOffset + size > buffer.capacity()) {
+                buffer = roll();
+            }
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            buffer.put(writeOffset + HEADER, payload);
+            buffer.putInt(writeOffset + 4, (int) crc.getValue());
+            buffer.putInt(writeOffset, payload.length);
+            writeOffset += size;
+        }
+        if (fsync) {
+            segments.get(writeSegment).force();
+        }
+    }
+
+    public WalBatch read(WalPosition from, int max) {
+        long endSegment;
+        int endOffset;
+        synchronized (this) {
+            endSegment = writeSegment;
+            endOffset = writeOffset;
+        }
+        long segment = from.segment();
+        int offset = from.offset();
+        List<EndpointHit> hits = new ArrayList<>();
+        while (hits.size() < max) {
+            MappedByteBuffer buffer = segments.get(segment);
+            int end = segment == endSegment ? endOffset : buffer.capacity();
+            int length = offset + HEADER <= end ? buffer.getInt(offset) : 0;
+            if (length <= 0 || offset + HEADER + length > end) {
+                if (segment >= endSegment) {
+                    break;
+                }
+                segment++;
+                offset = 0;
+                continue;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(offset + HEADER, payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                log.error("Повреждённая запись в сегменте {} на позиции {}, остаток сегмента пропущен", segment, offset);
+                if (segment >= endSegment) {
+                    break;
+                }
+                segment++;
+                offset = 0;
+                continue;
+            }
+            hits.add(decode(payload));
+            offset += HEADER + length;
+        }
+        return new WalBatch(hits, new WalPosition(segment, offset));
+    }
+
+    // a checkpoint outside the log on disk (for example after the directory was wiped) restarts from its head
+    public synchronized WalPosition clamp(WalPosition position) {
+        boolean beyondEnd = position.segment() > writeSegment
+                || position.segment() == writeSegment && position.offset() > writeOffset;
+        if (beyondEnd || position.segment() < segments.firstKey()) {
+            log.warn("Позиция {} вне журнала хитов, чтение с начала сегмента {}", position, segments.firstKey());
+            return new WalPosition(segments.firstKey(), 0);
+        }
+        return position;
+    }
+
+    // only the drainer reads below the drained position, so nothing else can touch a segment once it is removed
+    public void truncate(WalPosition position) throws IOException {
+        drained = position;
+        for (Long segment : segments.headMap(position.segment()).keySet()) {
+            MappedByteBuffer buffer = segments.remove(segment);
+            Path file = segmentPath(segment);
+            boolean keep;
+            synchronized (this) {
+                keep = spares.size() < spareSegments;
+            }
+            if (!keep) {
+                Files.deleteIfExists(file);
+                log.debug("Сегмент журнала хитов {} удалён", segment);
+                continue;
+            }
+            // zeroed on disk before the rename, a crash can never replay its old records under a new id
+            for (int offset = 0; offset < buffer.capacity(); offset += ZEROS.length) {
+                buffer.put(offset, ZEROS, 0, Math.min(ZEROS.length, buffer.capacity() - offset));
+            }
+            buffer.force();
+            Path spare = dir.resolve(String.format("%020d%s", segment, SPARE_SUFFIX));
+            Files.move(file, spare, StandardCopyOption.ATOMIC_MOVE);
+            synchronized (this) {
+                spares.push(new Spare(spare, buffer));
+            }
+            log.debug("Сегмент журнала хитов {} очищен и оставлен в запасе", segment);
+        }
+    }
+
+    private synchronized long lagBytes() {
+        WalPosition from = drained;
+        long lag = 0;
+        for (Map.Entry<Long, MappedByteBuffer> entry : segments.tailMap(from.segment()).entrySet()) {
+            long end = entry.getKey() == writeSegment ? writeOffset : entry.getValue().capacity();
+            lag += end - (entry.getKey() == from.segment() ? from.offset() : 0);
+        }
+        return lag;
+    }
+
+    private MappedByteBuffer roll() throws IOException {
+        MappedByteBuffer current = segments.get(writeSegment);
+        if (fsync) {
+            current.force();
+        }
+        Path file = segmentPath(writeSegment + 1);
+        Spare spare = spares.poll();
+        MappedByteBuffer next;
+        if (spare != null) {
+            Files.move(spare.file(), file, StandardCopyOption.ATOMIC_MOVE);
+            next = spare.buffer();
+        } else {
+            next = map(file);
+        }
+        segments.put(writeSegment + 1, next);
+        writeSegment++;
+        writeOffset = 0;
+        return next;
+    }
+
+    private MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            long size = channel.size() > 0 ? channel.size() : segmentSize;
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return dir.resolve(String.format("%020d%s", segment, SUFFIX));
+    }
+
+    private static int scanEnd(MappedByteBuffer buffer) {
+        int offset = 0;
+        while (offset + HEADER <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + HEADER + length > buffer.capacity()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(offset + HEADER, payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                break;
+            }
+            offset += HEADER + length;
+        }
+        return offset;
+    }
+
+    private static byte[] encode(EndpointHit hit) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(hit.getApp());
+            out.writeUTF(hit.getUri());
+            out.writeByte(hit.getIp().length);
+            out.write(hit.getIp());
+            out.writeLong(hit.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(hit.getTimestamp().getNano());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static EndpointHit decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            String app = in.readUTF();
+            String uri = in.readUTF();
+            byte[] ip = new byte[in.readUnsignedByte()];
+            in.readFully(ip);
+            LocalDateTime timestamp = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+            return new EndpointHit(app, uri, ip, timestamp);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Spare(Path file, MappedByteBuffer buffer) {
+    }
+}
@@ -0,0 +1,108 @@
+package ru.practicum.wal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import ru.practicum.mapper.EndpointHitMapper;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.repository.WalCheckpointRepository;
+import ru.practicum.service.HitWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/*
+ * Bulk-loads the hit log into the database; the first run after a restart replays whatever was not drained.
+ * A batch the database keeps rejecting (stats.wal.max-attempts times in a row while it is reachable) is moved
+ * to <stats.wal.dir>/dead-letter as NDJSON, which POST /hits/batch accepts once the cause is fixed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "stats.ingest.mode", havingValue = "wal")
+public class HitLogDrainer {
+    private static final String DEAD_LETTER_DIR = "dead-letter";
+
+    private final HitLog hitLog;
+    private final HitWriter hitWriter;
+    private final WalCheckpointRepository walCheckpointRepository;
+    private final ObjectMapper objectMapper;
+    @Value("${stats.wal.dir:wal}")
+    private Path dir;
+    @Value("${stats.wal.drain-batch:5000}")
+    private int batchSize;
+    @Value("${stats.wal.max-attempts:5}")
+    private int maxAttempts;
+    private WalPosition position;
+    private int failedAttempts;
+
+    @Scheduled(fixedDelayString = "${stats.wal.drain-interval-ms:200}")
+    public void drain() throws IOException {
+        if (position == null) {
+            position = hitLog.clamp(walCheckpointRepository.find());
+            log.info("Выгрузка журнала хитов начинается с {}", position);
+        }
+        while (true) {
+            WalBatch batch = hitLog.read(position, batchSize);
+            if (!batch.hits().isEmpty() && !write(batch)) {
+                return;
+            }
+            position = batch.next();
+            hitLog.truncate(position);
+            if (batch.hits().size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    // false leaves the position where it is, the batch is read again on the next run
+    private boolean write(WalBatch batch) throws IOException {
+        try {
+            hitWriter.write(batch.hits(), batch.next());
+            failedAttempts = 0;
+            log.debug("Из журнала выгружено {} хитов до {}", batch.hits().size(), batch.next());
+            return true;
+        } catch (DataAccessResourceFailureException | TransientDataAccessException
+                 | CannotCreateTransactionException e) {
+            // an unavailable database is waited out, it says nothing about the batch itself
+            log.warn("База недоступна, выгрузка журнала с {} будет повторена: {}", position, e.getMessage());
+            return false;
+        } catch (RuntimeException e) {
+            failedAttempts++;
+            if (failedAttempts < maxAttempts) {
+                log.warn("Пачка журнала с {} не записана, попытка {} из {}: {}", position, failedAttempts,
+                        maxAttempts, e.getMessage());
+                return false;
+            }
+            Path file = deadLetter(batch);
+            walCheckpointRepository.save(batch.next());
+            failedAttempts = 0;
+            log.error("Пачка журнала с {} из {} хитов не записана после {} попыток и перенесена в {}", position,
+                    batch.hits().size(), maxAttempts, file, e);
+            return true;
+        }
+    }
+
+    // named by the batch position, so a retry after a failed checkpoint overwrites the same file
+    private Path deadLetter(WalBatch batch) throws IOException {
+        Path deadLetters = Files.createDirectories(dir.resolve(DEAD_LETTER_DIR));
+        Path file = deadLetters.resolve(String.format("%020d-%010d.ndjson", position.segment(), position.offset()));
+        try (OutputStream out = Files.newOutputStream(file);
+             SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+            for (EndpointHit hit : batch.hits()) {
+                writer.write(EndpointHitMapper.toEndpointHitDto(hit));
+            }
+        }
+        return file;
+    }
+}
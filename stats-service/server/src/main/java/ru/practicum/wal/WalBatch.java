@@ -0,0 +1,8 @@
+package ru.practicum.wal;
+
+import ru.practicum.model.EndpointHit;
+
+import java.util.List;
+
+public record WalBatch(List<EndpointHit> hits, WalPosition next) {
+}
@@ -0,0 +1,5 @@
+package ru.practicum.wal;
+
+public record WalPosition(long segment, int offset) {
+    public static final WalPosition START = new WalPosition(0, 0);
+}
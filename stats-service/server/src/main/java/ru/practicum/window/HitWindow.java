@@ -0,0 +1,253 @@
+package ru.practicum.window;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.ViewStatsDto;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.repository.HitJdbcRepository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Sliding window of non-unique hit counters for the last stats.window.minutes minutes, kept in a ring of
+ * per-minute slots. A slot is reused once its minute falls out of the window. Each (uri, app) cell holds
+ * striped per-second counters, so partial minutes at the range edges are exact and concurrent hits of a hot uri
+ * do not contend on one counter. A slot holds at most
+ * stats.window.max-cells / stats.window.minutes cells; a minute with more distinct (uri, app) pairs is marked
+ * incomplete and ranges touching it are answered from the rollups instead.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HitWindow implements InitializingBean {
+    private final HitJdbcRepository hitJdbcRepository;
+    @Value("${stats.window.enabled:true}")
+    private boolean enabled;
+    @Value("${stats.window.minutes:1440}")
+    private int minutes;
+    @Value("${stats.window.max-cells:1000000}")
+    private int maxCells;
+    private int maxCellsPerSlot;
+    private AtomicReferenceArray<Slot> slots;
+    // minutes of hits that could not be recorded, see add
+    private final AtomicLong skippedFrom = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong skippedTo = new AtomicLong(Long.MIN_VALUE);
+    private volatile boolean ready;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enabled) {
+            return;
+        }
+        slots = new AtomicReferenceArray<>(minutes);
+        maxCellsPerSlot = Math.max(1, maxCells / minutes);
+        LocalDateTime from = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES).minusMinutes(minutes - 1);
+        long startNanos = System.nanoTime();
+        hitJdbcRepository.countBySecond(from, count ->
+                add(count.app(), count.uri(), epochSecond(count.bucket()), count.hits()));
+        ready = true;
+        log.info("Окно горячих хитов восстановлено с {} за {} мс", from,
+                (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    public void record(List<EndpointHit> hits) {
+        if (!ready) {
+            return;
+        }
+        for (EndpointHit hit : hits) {
+            add(hit.getApp(), hit.getUri(), epochSecond(hit.getTimestamp()), 1);
+        }
+    }
+
+    // the oldest slot may be recycled while it is being read, so one minute of margin is left at the tail
+    public boolean covers(LocalDateTime start, LocalDateTime end) {
+        if (!ready) {
+            return false;
+        }
+        long current = currentMinute();
+        long first = Math.floorDiv(epochSecond(start), 60);
+        if (first < current - minutes + 2) {
+            return false;
+        }
+        long last = Math.min(Math.floorDiv(epochSecond(end), 60), current + 1);
+        if (first <= skippedTo.get() && last >= skippedFrom.get()) {
+            return false;
+        }
+        for (long minute = first; minute <= last; minute++) {
+            Slot slot = slots.get(index(minute));
+            if (slot != null && slot.minute == minute && slot.overflowed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public List<ViewStatsDto> getHits(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        long from = epochSecond(start);
+        if (start.getNano() > 0) {
+            from++;
+        }
+        long to = epochSecond(end);
+        Set<String> uriSet = uris != null ? new HashSet<>(uris) : null;
+        Map<String, Map<String, Long>> totals = new HashMap<>();
+        for (long minute = Math.floorDiv(from, 60); minute <= Math.floorDiv(to, 60); minute++) {
+            Slot slot = slots.get(index(minute));
+            if (slot == null || slot.minute != minute) {
+                continue;
+            }
+            int lo = minute == Math.floorDiv(from, 60) ? (int) Math.floorMod(from, 60) : 0;
+            int hi = minute == Math.floorDiv(to, 60) ? (int) Math.floorMod(to, 60) : 59;
+            Collection<String> keys = uriSet != null ? uriSet : slot.cells.keySet();
+            for (String uri : keys) {
+                Map<String, Cell> apps = slot.cells.get(uri);
+                if (apps == null) {
+                    continue;
+                }
+                Map<String, Long> uriTotals = totals.computeIfAbsent(uri, k -> new HashMap<>());
+                apps.forEach((app, cell) -> uriTotals.merge(app, cell.sum(lo, hi), Long::sum));
+            }
+        }
+        List<ViewStatsDto> result = new ArrayList<>();
+        totals.forEach((uri, apps) -> apps.forEach((app, hits) -> {
+            if (hits > 0) {
+                result.add(new ViewStatsDto(app, uri, hits));
+            }
+        }));
+        result.sort(Comparator.comparing(ViewStatsDto::getHits).reversed());
+        return result;
+    }
+
+    /*
+     * Hits stamped in the future are rejected before they are stored (StatsServiceImpl.ingest), so the upper
+     * bound only guards the ring against a clock step between ingest and commit. Such a hit is still in the
+     * database, so ranges over its minute are answered from the rollups.
+     */
+    private void add(String app, String uri, long second, long count) {
+        long minute = Math.floorDiv(second, 60);
+        long current = currentMinute();
+        if (minute <= current - minutes) {
+            return;
+        }
+        if (minute > current + 1) {
+            skippedFrom.accumulateAndGet(minute, Math::min);
+            skippedTo.accumulateAndGet(minute, Math::max);
+            log.warn("Хит с временем из будущего не попал в окно, минута {} будет считаться по агрегатам", minute);
+            return;
+        }
+        Slot slot = slot(minute);
+        if (slot == null) {
+            return;
+        }
+        Cell cell = slot.cell(uri, app, maxCellsPerSlot);
+        if (cell != null) {
+            cell.add((int) Math.floorMod(second, 60), count);
+        }
+    }
+
+    private Slot slot(long minute) {
+        int index = index(minute);
+        while (true) {
+            Slot slot = slots.get(index);
+            if (slot != null && slot.minute == minute) {
+                return slot;
+            }
+            if (slot != null && slot.minute > minute) {
+                return null;
+            }
+            Slot fresh = new Slot(minute);
+            if (slots.compareAndSet(index, slot, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private int index(long minute) {
+        return (int) Math.floorMod(minute, minutes);
+    }
+
+    private static long currentMinute() {
+        return Math.floorDiv(epochSecond(LocalDateTime.now()), 60);
+    }
+
+    private static long epochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static class Slot {
+        private final long minute;
+        private final Map<String, Map<String, Cell>> cells = new ConcurrentHashMap<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private volatile boolean overflowed;
+
+        Slot(long minute) {
+            this.minute = minute;
+        }
+
+        // null once the slot is full, the hit is then only in the database and the slot stops answering
+        Cell cell(String uri, String app, int maxCells) {
+            Map<String, Cell> apps = cells.get(uri);
+            Cell cell = apps != null ? apps.get(app) : null;
+            if (cell != null) {
+                return cell;
+            }
+            if (size.incrementAndGet() > maxCells) {
+                size.decrementAndGet();
+                overflowed = true;
+                return null;
+            }
+            Cell fresh = new Cell();
+            cell = cells.computeIfAbsent(uri, k -> new ConcurrentHashMap<>()).putIfAbsent(app, fresh);
+            if (cell != null) {
+                size.decrementAndGet();
+                return cell;
+            }
+            return fresh;
+        }
+    }
+
+    // a second gets its adder on its first hit, most cells only see a few seconds of a minute
+    private static class Cell {
+        private final AtomicReferenceArray<LongAdder> seconds = new AtomicReferenceArray<>(60);
+
+        void add(int second, long count) {
+            LongAdder adder = seconds.get(second);
+            if (adder == null) {
+                LongAdder fresh = new LongAdder();
+                adder = seconds.compareAndExchange(second, null, fresh);
+                if (adder == null) {
+                    adder = fresh;
+                }
+            }
+            adder.add(count);
+        }
+
+        long sum(int lo, int hi) {
+            long sum = 0;
+            for (int i = lo; i <= hi; i++) {
+                LongAdder adder = seconds.get(i);
+                if (adder != null) {
+                    sum += adder.sum();
+                }
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package ru.practicum.window;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.ViewStatsDto;
+import ru.practicum.model.EndpointHit;
+import ru.practicum.model.TimeBuckets;
+import ru.practicum.repository.HitRollupRepository;
+import ru.practicum.sketch.SpaceSaving;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/*
+ * One Space-Saving summary per hour for the last stats.top.retention-hours hours.
+ * A range query merges the summaries of the whole hours inside it, so its cost depends on the number of hours
+ * and the summary capacity, not on the number of stored hits. Partial hours at the edges are counted exactly
+ * from the minute rollups and raw hits.
+ * A key missing from an hour's summary is counted with that summary's floor, so every reported count is an
+ * upper bound that overestimates by at most the sum of the hourly floors (each at most that hour's
+ * total / capacity). Keys whose bounds lie within that error of each other may be ranked in the wrong order.
+ * Only ranges whose whole hours are all retained are answered here, see covers.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TopHitWindow implements InitializingBean {
+    private final HitRollupRepository hitRollupRepository;
+    private final ConcurrentNavigableMap<LocalDateTime, SpaceSaving<AppUri>> hours = new ConcurrentSkipListMap<>();
+    @Value("${stats.top.capacity:1000}")
+    private int capacity;
+    @Value("${stats.top.retention-hours:744}")
+    private int retentionHours;
+
+    @Override
+    public void afterPropertiesSet() {
+        LocalDateTime from = cutoff();
+        hitRollupRepository.countByHour(from, count ->
+                summary(count.bucket()).offer(new AppUri(count.app(), count.uri()), count.hits()));
+        log.info("Сводки топа хитов восстановлены с {}, часов: {}", from, hours.size());
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // hours older than the retention cutoff are already dropped, a range reaching them would be undercounted
+    public boolean covers(LocalDateTime start, LocalDateTime end) {
+        return !TimeBuckets.of(start, end).getHourStart().isBefore(cutoff());
+    }
+
+    public void record(List<EndpointHit> hits) {
+        LocalDateTime cutoff = cutoff();
+        for (EndpointHit hit : hits) {
+            LocalDateTime hour = hit.getTimestamp().truncatedTo(ChronoUnit.HOURS);
+            if (!hour.isBefore(cutoff)) {
+                summary(hour).offer(new AppUri(hit.getApp(), hit.getUri()), 1);
+            }
+        }
+        hours.headMap(cutoff).clear();
+    }
+
+    public List<ViewStatsDto> getTop(LocalDateTime start, LocalDateTime end, int k) {
+        TimeBuckets buckets = TimeBuckets.of(start, end);
+        Map<AppUri, Long> totals = new HashMap<>();
+        long floors = 0;
+        for (SpaceSaving<AppUri> summary : hours.subMap(buckets.getHourStart(), true, buckets.getHourEnd(), false)
+                .values()) {
+            floors += summary.mergeInto(totals);
+        }
+        for (ViewStatsDto edge : hitRollupRepository.getHitsOutsideHours(start, end)) {
+            totals.merge(new AppUri(edge.getApp(), edge.getUri()), edge.getHits(), Long::sum);
+        }
+        long missing = floors;
+        totals.replaceAll((key, count) -> count + missing);
+        return SpaceSaving.top(totals, k).stream()
+                .map(entry -> new ViewStatsDto(entry.getKey().app(), entry.getKey().uri(), entry.getValue()))
+                .toList();
+    }
+
+    private SpaceSaving<AppUri> summary(LocalDateTime hour) {
+        return hours.computeIfAbsent(hour, h -> new SpaceSaving<>(capacity));
+    }
+
+    private LocalDateTime cutoff() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(retentionHours - 1);
+    }
+
+    private record AppUri(String app, String uri) {
+    }
+}
@@ -0,0 +1,53 @@
+-- Converts an existing unpartitioned hits table into the partitioned layout from schema.sql.
+-- The old table is kept as a single partition covering everything before :cutover, so no rows are copied.
+-- Run with psql while the stats server is stopped:
+--   psql -v cutover="'2026-10-19 00:00:00'" -f hits-partition-migration.sql stats
+-- :cutover must be the start of the first period the stats server is going to create partitions for
+-- (the current day or month). After startup the server creates partitions from there on.
+
+BEGIN;
+
+LOCK TABLE hits IN ACCESS EXCLUSIVE MODE;
+
+ALTER TABLE hits RENAME TO hits_legacy;
+ALTER TABLE hits_legacy ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE hits_legacy DROP CONSTRAINT IF EXISTS hits_pkey;
+DROP INDEX IF EXISTS hits_timestamp_idx;
+
+DELETE FROM hits_legacy WHERE app IS NULL OR uri IS NULL OR ip IS NULL OR timestamp IS NULL;
+ALTER TABLE hits_legacy ALTER COLUMN app SET NOT NULL;
+ALTER TABLE hits_legacy ALTER COLUMN uri SET NOT NULL;
+ALTER TABLE hits_legacy ALTER COLUMN ip SET NOT NULL;
+ALTER TABLE hits_legacy ALTER COLUMN timestamp SET NOT NULL;
+-- the old VARCHAR(15) column can only hold IPv4, stored as 4 bytes in network order
+ALTER TABLE hits_legacy ALTER COLUMN ip TYPE BYTEA
+    USING decode(lpad(to_hex(ip::inet - '0.0.0.0'::inet), 8, '0'), 'hex');
+
+-- rows at or after the cutover go to the default partition, the check lets ATTACH skip its validation scan
+CREATE TABLE hits_default_legacy AS SELECT * FROM hits_legacy WHERE timestamp >= :cutover;
+DELETE FROM hits_legacy WHERE timestamp >= :cutover;
+ALTER TABLE hits_legacy ADD CONSTRAINT hits_legacy_range CHECK (timestamp < :cutover);
+
+CREATE TABLE hits (
+    id         BIGSERIAL,
+    app        VARCHAR(255) NOT NULL,
+    uri        VARCHAR(255) NOT NULL,
+    ip         BYTEA NOT NULL,
+    timestamp  TIMESTAMP NOT NULL,
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+CREATE TABLE hits_default PARTITION OF hits DEFAULT;
+
+ALTER TABLE hits ATTACH PARTITION hits_legacy FOR VALUES FROM (MINVALUE) TO (:cutover);
+ALTER TABLE hits_legacy DROP CONSTRAINT hits_legacy_range;
+
+INSERT INTO hits SELECT * FROM hits_default_legacy;
+DROP TABLE hits_default_legacy;
+
+CREATE INDEX hits_timestamp_idx ON hits (timestamp);
+CREATE INDEX hits_uri_timestamp_idx ON hits (uri, timestamp);
+
+SELECT setval('hits_id_seq', COALESCE((SELECT MAX(id) FROM hits), 0) + 1, false);
+
+COMMIT;
@@ -1,9 +1,56 @@
 DROP TABLE IF EXISTS hits CASCADE;
+DROP TABLE IF EXISTS hits_minute CASCADE;
+DROP TABLE IF EXISTS hits_hour CASCADE;
+DROP TABLE IF EXISTS hits_sketch CASCADE;
+DROP FUNCTION IF EXISTS hll_merge(BYTEA, BYTEA);
 
 CREATE TABLE IF NOT EXISTS hits (
-    id         BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY,
-    app        VARCHAR(255),
-    uri        VARCHAR(255),
-    ip         VARCHAR(15),
-    timestamp  TIMESTAMP
-);
\ No newline at end of file
+    id         BIGSERIAL,
+    app        VARCHAR(255) NOT NULL,
+    uri        VARCHAR(255) NOT NULL,
+    ip         BYTEA NOT NULL,
+    timestamp  TIMESTAMP NOT NULL,
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+CREATE TABLE IF NOT EXISTS hits_default PARTITION OF hits DEFAULT;
+
+CREATE INDEX IF NOT EXISTS hits_timestamp_idx ON hits (timestamp);
+CREATE INDEX IF NOT EXISTS hits_uri_timestamp_idx ON hits (uri, timestamp);
+
+CREATE TABLE IF NOT EXISTS hits_minute (
+    app     VARCHAR(255) NOT NULL,
+    uri     VARCHAR(255) NOT NULL,
+    bucket  TIMESTAMP NOT NULL,
+    hits    BIGINT NOT NULL,
+    PRIMARY KEY (uri, bucket, app)
+);
+
+CREATE INDEX IF NOT EXISTS hits_minute_bucket_idx ON hits_minute (bucket);
+
+CREATE TABLE IF NOT EXISTS hits_hour (
+    app     VARCHAR(255) NOT NULL,
+    uri     VARCHAR(255) NOT NULL,
+    bucket  TIMESTAMP NOT NULL,
+    hits    BIGINT NOT NULL,
+    PRIMARY KEY (uri, bucket, app)
+);
+
+CREATE INDEX IF NOT EXISTS hits_hour_bucket_idx ON hits_hour (bucket);
+
+CREATE TABLE IF NOT EXISTS hits_sketch (
+    app        VARCHAR(255) NOT NULL,
+    uri        VARCHAR(255) NOT NULL,
+    bucket     TIMESTAMP NOT NULL,
+    registers  BYTEA NOT NULL,
+    PRIMARY KEY (uri, bucket, app)
+);
+
+CREATE INDEX IF NOT EXISTS hits_sketch_bucket_idx ON hits_sketch (bucket);
+
+-- not dropped above: the drained position must survive restarts, otherwise drained hits would be replayed
+CREATE TABLE IF NOT EXISTS hits_wal_checkpoint (
+    id        SMALLINT PRIMARY KEY,
+    segment   BIGINT NOT NULL,
+    position  INTEGER NOT NULL
+);
@@ -0,0 +1,77 @@
+package ru.practicum.controller;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.EndpointHitDto;
+import ru.practicum.configuration.DateFormatConfig;
+import ru.practicum.service.StatsService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(StatsController.class)
+@Import(DateFormatConfig.class)
+@TestPropertySource(properties = "stats.ingest.ndjson-batch-size=5")
+class StatsControllerNdjsonTest {
+    private static final String NDJSON = "application/x-ndjson";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @MockBean
+    private StatsService statsService;
+
+    @Test
+    void savesNdjsonInFixedSizeBatches() throws Exception {
+        List<Integer> sizes = new ArrayList<>();
+        doAnswer(invocation -> sizes.add(invocation.<List<EndpointHitDto>>getArgument(0).size()))
+                .when(statsService).saveAll(anyList());
+
+        mockMvc.perform(post("/hits/batch").contentType(NDJSON).content(lines(12)))
+                .andExpect(status().isCreated());
+
+        assertThat(sizes).containsExactly(5, 5, 2);
+    }
+
+    @Test
+    void rejectsMalformedLineAfterSavingEarlierBatches() throws Exception {
+        mockMvc.perform(post("/hits/batch").contentType(NDJSON).content(lines(6) + "{\"app\":\n"))
+                .andExpect(status().isBadRequest());
+
+        ArgumentCaptor<List<EndpointHitDto>> batch = ArgumentCaptor.captor();
+        verify(statsService, times(1)).saveAll(batch.capture());
+        assertThat(batch.getValue()).hasSize(5);
+    }
+
+    @Test
+    void rejectsInvalidHitBeforeSavingAnything() throws Exception {
+        String invalid = "{\"app\":\"ewm\",\"uri\":\"/events/1\",\"ip\":\"\",\"timestamp\":\"2024-01-01 10:00:00\"}\n";
+        mockMvc.perform(post("/hits/batch").contentType(NDJSON).content(lines(2) + invalid))
+                .andExpect(status().isBadRequest());
+
+        verify(statsService, never()).saveAll(anyList());
+    }
+
+    private static String lines(int count) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            body.append("{\"app\":\"ewm\",\"uri\":\"/events/").append(i)
+                    .append("\",\"ip\":\"10.0.0.1\",\"timestamp\":\"2024-01-01 10:00:00\"}\n");
+        }
+        return body.toString();
+    }
+}
@@ -0,0 +1,38 @@
+package ru.practicum.mapper;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.practicum.exception.BadRequestException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EndpointHitMapperTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "192.168.0.1, 192.168.0.1",
+            "::1, 0:0:0:0:0:0:0:1",
+            "::, 0:0:0:0:0:0:0:0",
+            "2001:db8::8a2e:370:7334, 2001:db8:0:0:0:8a2e:370:7334",
+            "2001:DB8:0:0:0:0:0:1, 2001:db8:0:0:0:0:0:1",
+            "fe80::, fe80:0:0:0:0:0:0:0",
+            "::ffff:10.0.0.1, 10.0.0.1",
+            "64:ff9b::192.0.2.33, 64:ff9b:0:0:0:0:c000:221",
+            "1:2:3:4:5:6:1.2.3.4, 1:2:3:4:5:6:102:304"
+    })
+    void parsesAddresses(String ip, String expected) {
+        assertThat(EndpointHitMapper.toIpString(EndpointHitMapper.toIpBytes(ip))).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "1.2.3.4::", "1.2.3.4::1", "1.2.3.4:1::", "::1.2.3.4:1", "1:2:3:4:5:6:7:1.2.3.4",
+            "g::1", "host:80", "1::2::3", ":::", "1:2:3:4:5:6:7", "1:2:3:4:5:6:7:8:9", "12345::",
+            "256.0.0.1", "1.2.3", "1.2.3.4.5", ""
+    })
+    void rejectsMalformedAddresses(String ip) {
+        assertThatThrownBy(() -> EndpointHitMapper.toIpBytes(ip)).isInstanceOf(BadRequestException.class);
+    }
+}
@@ -0,0 +1,135 @@
+package ru.practicum.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.practicum.ViewStatsDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * hits.ip as BYTEA against the VARCHAR(15) column it replaced, same rows in both: sizes are printed on setup,
+ * the benchmarks time the unique-hits query of HitJdbcRepository over the whole seeded month.
+ * Addresses are spread over all of IPv4, so their text form has 7 to 15 characters.
+ * The tables are reseeded only when they do not hold `rows` hits.
+ * mvn -pl stats-service/server -am test -DskipTests -Dbench=server
+ *     -Djmh.args="HitIpStorageBenchmark -p url=jdbc:postgresql://localhost:5432/stats_ip_bench"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class HitIpStorageBenchmark {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final LocalDateTime END = START.plusDays(30);
+
+    @Param("jdbc:postgresql://localhost:5432/stats_ip_bench")
+    private String url;
+    @Param("stats")
+    private String user;
+    @Param("stats")
+    private String password;
+    @Param("5000000")
+    private int rows;
+    @Param("200000")
+    private int visitors;
+    @Param("1000")
+    private int uris;
+
+    private HikariDataSource dataSource;
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+    private HitJdbcRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(user);
+        dataSource.setPassword(password);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        repository = new HitJdbcRepository(jdbcTemplate, namedJdbcTemplate, null);
+        if (seeded(jdbcTemplate) != rows) {
+            seed(jdbcTemplate);
+        }
+        for (String table : List.of("hits_default", "hits_varchar_default")) {
+            Map<String, Object> size = jdbcTemplate.queryForMap("SELECT pg_relation_size(?::regclass) AS heap, " +
+                    "pg_indexes_size(?::regclass) AS indexes, avg(pg_column_size(ip)) AS ip, " +
+                    "avg(pg_column_size(t.*)) AS row FROM " + table + " t", table, table);
+            System.out.printf("%n%s: heap %d MB, indexes %d MB, ip %.2f bytes, row %.2f bytes%n", table,
+                    ((Number) size.get("heap")).longValue() >> 20, ((Number) size.get("indexes")).longValue() >> 20,
+                    ((Number) size.get("ip")).doubleValue(), ((Number) size.get("row")).doubleValue());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public List<ViewStatsDto> countDistinctBytea() {
+        return repository.getUniqueHits(START, END, null);
+    }
+
+    @Benchmark
+    public List<ViewStatsDto> countDistinctVarchar() {
+        return namedJdbcTemplate.query("SELECT app, uri, COUNT(DISTINCT ip) AS hits FROM hits_varchar " +
+                        "WHERE timestamp BETWEEN :start AND :end GROUP BY app, uri ORDER BY hits DESC",
+                Map.of("start", START, "end", END),
+                (rs, rowNum) -> new ViewStatsDto(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+
+    private long seeded(JdbcTemplate jdbcTemplate) {
+        try {
+            Long count = jdbcTemplate.queryForObject("SELECT (SELECT count(*) FROM hits) + " +
+                    "(SELECT count(*) FROM hits_varchar)", Long.class);
+            return count != null ? count / 2 : 0;
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private void seed(JdbcTemplate jdbcTemplate) {
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS hits_varchar, hits_seed CASCADE");
+        jdbcTemplate.execute("CREATE TABLE hits_varchar (id BIGINT, app VARCHAR(255) NOT NULL, " +
+                "uri VARCHAR(255) NOT NULL, ip VARCHAR(15) NOT NULL, timestamp TIMESTAMP NOT NULL, " +
+                "PRIMARY KEY (id, timestamp)) PARTITION BY RANGE (timestamp)");
+        jdbcTemplate.execute("CREATE TABLE hits_varchar_default PARTITION OF hits_varchar DEFAULT");
+        jdbcTemplate.execute("CREATE INDEX ON hits_varchar (timestamp)");
+        jdbcTemplate.execute("CREATE INDEX ON hits_varchar (uri, timestamp)");
+        // one pseudo-random address per visitor, kept as a number so both tables get the same one
+        jdbcTemplate.update("CREATE UNLOGGED TABLE hits_seed AS SELECT g, '/events/' || (g % ?) AS uri, " +
+                "(('x' || substr(md5((random() * ?)::int::text), 1, 8))::bit(32)::int::bigint & 4294967295) AS ip, " +
+                "?::timestamp + (random() * 2592000) * interval '1 second' AS timestamp " +
+                "FROM generate_series(1, ?) AS g", uris, visitors, START, rows);
+        jdbcTemplate.execute("INSERT INTO hits (id, app, uri, ip, timestamp) SELECT g, 'ewm-main-service', uri, " +
+                "decode(lpad(to_hex(ip), 8, '0'), 'hex'), timestamp FROM hits_seed");
+        jdbcTemplate.execute("INSERT INTO hits_varchar (id, app, uri, ip, timestamp) " +
+                "SELECT g, 'ewm-main-service', uri, host('0.0.0.0'::inet + ip), timestamp FROM hits_seed");
+        jdbcTemplate.execute("DROP TABLE hits_seed");
+        jdbcTemplate.execute("VACUUM ANALYZE hits_default");
+        jdbcTemplate.execute("VACUUM ANALYZE hits_varchar_default");
+    }
+}
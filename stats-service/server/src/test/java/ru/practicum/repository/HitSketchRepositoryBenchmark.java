@@ -0,0 +1,90 @@
+package ru.practicum.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.model.EndpointHit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Latency of one ingest batch on the sketch table, all keys of the batch already present (steady state).
+ * Needs a scratch database, the schema is recreated on every trial:
+ * mvn -pl stats-service/server -am test -DskipTests -Dbench=server
+ *     -Djmh.args="HitSketchRepositoryBenchmark -p url=jdbc:postgresql://localhost:5432/stats_bench"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class HitSketchRepositoryBenchmark {
+    @Param("jdbc:postgresql://localhost:5432/stats_bench")
+    private String url;
+    @Param("stats")
+    private String user;
+    @Param("stats")
+    private String password;
+    @Param("5000")
+    private int batchSize;
+    @Param({"10", "500"})
+    private int uris;
+
+    private HikariDataSource dataSource;
+    private HitSketchRepository repository;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(url + "?reWriteBatchedInserts=true");
+        dataSource.setUsername(user);
+        dataSource.setPassword(password);
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        repository = new HitSketchRepository(new NamedParameterJdbcTemplate(dataSource));
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public void add() {
+        List<EndpointHit> hits = batch();
+        transactionTemplate.executeWithoutResult(status -> repository.add(hits));
+    }
+
+    private List<EndpointHit> batch() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDateTime timestamp = LocalDateTime.of(2024, 1, 1, 10, 0);
+        List<EndpointHit> hits = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            byte[] ip = {10, (byte) random.nextInt(256), (byte) random.nextInt(256), (byte) random.nextInt(256)};
+            hits.add(new EndpointHit("ewm-main-service", "/events/" + random.nextInt(uris), ip, timestamp));
+        }
+        return hits;
+    }
+}
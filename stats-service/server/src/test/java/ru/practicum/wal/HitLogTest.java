@@ -0,0 +1,101 @@
+package ru.practicum.wal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.model.EndpointHit;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HitLogTest {
+    // one record of hit(i) takes 8 + 5 + 5 + 1 + 4 + 8 + 4 = 35 bytes, a segment holds 4
+    private static final int SEGMENT_SIZE = 140;
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    void recyclesDrainedSegmentsAsZeroedSpares() throws Exception {
+        HitLog log = open(1);
+        log.append(hits(0, 12));
+        assertThat(files()).containsExactlyInAnyOrder(segment(0), segment(1), segment(2));
+
+        log.truncate(new WalPosition(2, 0));
+        // segment 0 became the only spare, segment 1 was deleted
+        assertThat(files()).containsExactlyInAnyOrder(segment(2), spare(0));
+
+        // the spare becomes segment 3, its old records 2 and 3 must not show up behind the new ones
+        log.append(hits(12, 2));
+        assertThat(files()).containsExactlyInAnyOrder(segment(2), segment(3));
+        assertThat(log.read(new WalPosition(2, 0), 100).hits()).extracting(EndpointHit::getUri)
+                .containsExactly(uris(8, 6));
+        log.destroy();
+
+        HitLog reopened = open(1);
+        assertThat(reopened.read(new WalPosition(2, 0), 100).hits()).extracting(EndpointHit::getUri)
+                .containsExactly(uris(8, 6));
+        reopened.append(hits(14, 1));
+        assertThat(reopened.read(new WalPosition(3, 0), 100).hits()).extracting(EndpointHit::getUri)
+                .containsExactly(uris(12, 3));
+        reopened.destroy();
+    }
+
+    @Test
+    void reusesSparesLeftOnDiskAfterRestart() throws Exception {
+        HitLog log = open(2);
+        log.append(hits(0, 9));
+        log.truncate(new WalPosition(2, 0));
+        log.destroy();
+        assertThat(files()).containsExactlyInAnyOrder(segment(2), spare(0), spare(1));
+
+        HitLog reopened = open(2);
+        reopened.append(hits(9, 4));
+        assertThat(files()).hasSize(3).contains(segment(2), segment(3));
+        assertThat(reopened.read(new WalPosition(2, 0), 100).hits()).extracting(EndpointHit::getUri)
+                .containsExactly(uris(8, 5));
+        reopened.destroy();
+    }
+
+    private HitLog open(int spares) throws Exception {
+        HitLog log = new HitLog();
+        ReflectionTestUtils.setField(log, "dir", dir);
+        ReflectionTestUtils.setField(log, "segmentSize", SEGMENT_SIZE);
+        ReflectionTestUtils.setField(log, "spareSegments", spares);
+        log.afterPropertiesSet();
+        return log;
+    }
+
+    private List<String> files() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+
+    private static List<EndpointHit> hits(int from, int count) {
+        List<EndpointHit> hits = new ArrayList<>();
+        for (int i = from; i < from + count; i++) {
+            hits.add(new EndpointHit("ewm", String.format("/%02d", i), new byte[]{10, 0, 0, 1},
+                    LocalDateTime.of(2024, 1, 1, 10, 0, i)));
+        }
+        return hits;
+    }
+
+    private static String[] uris(int from, int count) {
+        return hits(from, count).stream().map(EndpointHit::getUri).toArray(String[]::new);
+    }
+
+    private static String segment(long id) {
+        return String.format("%020d.log", id);
+    }
+
+    private static String spare(long id) {
+        return String.format("%020d.spare", id);
+    }
+}